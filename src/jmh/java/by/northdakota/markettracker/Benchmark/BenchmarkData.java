@@ -0,0 +1,38 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import ch.qos.logback.classic.Level;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // подписчиков больше, чем товаров: примерно на каждый артикул приходится 3 чата
+    public static List<TrackedItem> trackedItems(int count, Marketplace marketplace) {
+        List<TrackedItem> items = new ArrayList<>(count);
+        int articles = Math.max(1, count / 3);
+        for (int i = 0; i < count; i++) {
+            items.add(TrackedItem.builder()
+                    .id((long) i)
+                    .article(String.valueOf(WbCardFixtures.article(i % articles)))
+                    .chatId((long) (i % 5_000))
+                    .marketplace(marketplace)
+                    .title("Товар " + i)
+                    .basicPrice(Money.ofKopecks(300_000))
+                    .currentPrice(Money.ofKopecks(100_000))
+                    .build());
+        }
+        return items;
+    }
+
+    public static void quietLogs() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("by.northdakota.markettracker")).setLevel(Level.WARN);
+    }
+}
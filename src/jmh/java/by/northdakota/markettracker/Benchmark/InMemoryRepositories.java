@@ -0,0 +1,100 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Repository.PollScheduleRepository;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// JpaRepository слишком широкий, чтобы реализовывать его целиком: прокси отвечает только на методы,
+// которые вызывают трекеры, и падает на остальных, чтобы бенчмарк не мерил молча не то
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    public static TrackedItemRepository trackedItems(List<TrackedItem> items, AtomicLong writes) {
+        return (TrackedItemRepository) Proxy.newProxyInstance(
+                TrackedItemRepository.class.getClassLoader(),
+                new Class<?>[]{TrackedItemRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findArticlesAfter" -> {
+                        Marketplace marketplace = (Marketplace) args[0];
+                        String after = (String) args[1];
+                        yield items.stream()
+                                .filter(i -> i.getMarketplace() == marketplace && i.getArticle().compareTo(after) > 0)
+                                .map(TrackedItem::getArticle)
+                                .distinct()
+                                .sorted()
+                                .limit(((Limit) args[2]).max())
+                                .toList();
+                    }
+                    case "findAllByMarketplaceAndArticleIn" -> {
+                        Marketplace marketplace = (Marketplace) args[0];
+                        Set<?> articles = new HashSet<>((Collection<?>) args[1]);
+                        yield items.stream()
+                                .filter(i -> i.getMarketplace() == marketplace && articles.contains(i.getArticle()))
+                                .toList();
+                    }
+                    case "findAllById" -> {
+                        Set<?> ids = new HashSet<>((Collection<?>) args[0]);
+                        yield items.stream().filter(i -> ids.contains(i.getId())).toList();
+                    }
+                    case "save" -> {
+                        writes.incrementAndGet();
+                        yield args[0];
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryTrackedItemRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public static PriceHistoryRepository priceHistory(AtomicLong writes) {
+        return (PriceHistoryRepository) Proxy.newProxyInstance(
+                PriceHistoryRepository.class.getClassLoader(),
+                new Class<?>[]{PriceHistoryRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        writes.incrementAndGet();
+                        yield (PriceHistory) args[0];
+                    }
+                    case "saveAll" -> {
+                        List<?> saved = List.copyOf((Collection<?>) args[0]);
+                        writes.addAndGet(saved.size());
+                        yield saved;
+                    }
+                    case "recordRollups" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryPriceHistoryRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public static PollScheduleRepository pollSchedule() {
+        return (PollScheduleRepository) Proxy.newProxyInstance(
+                PollScheduleRepository.class.getClassLoader(),
+                new Class<?>[]{PollScheduleRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> Map.of();
+                    case "saveAll", "deleteAll" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryPollScheduleRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,25 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OzonPriceParsingBenchmark {
+
+    @Param({"499 ₽", "1 162 ₽", "1 290,50 ₽"})
+    private String rawPrice;
+
+    private final OzonParser ozonParser = new OzonParser(null, null);
+
+    @Benchmark
+    public Money parsePrice() {
+        return ozonParser.parsePrice(rawPrice);
+    }
+}
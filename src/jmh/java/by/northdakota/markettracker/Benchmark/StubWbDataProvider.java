@@ -0,0 +1,39 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Parser.WB.WbDataProvider;
+import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// отдаёт карточки без сети; у каждого второго артикула цена меняется при каждом запросе
+public class StubWbDataProvider extends WbDataProvider {
+
+    private volatile long round;
+
+    public StubWbDataProvider(int batchSize) {
+        super(new WbParser(), null, new SimpleMeterRegistry(), 1, Duration.ofHours(1));
+        ReflectionTestUtils.setField(this, "batchSize", batchSize);
+    }
+
+    public void nextRound() {
+        round++;
+    }
+
+    @Override
+    public Map<String, WbProductCard> getProductCards(List<String> productArticles) {
+        Map<String, WbProductCard> cards = new HashMap<>();
+        for (String article : productArticles) {
+            long id = Long.parseLong(article);
+            long price = 100_000 + (id % 2 == 0 ? round % 2 : 0);
+            cards.put(article, new WbProductCard(id, "Товар " + article, Money.ofKopecks(price * 3), Money.ofKopecks(price)));
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,44 @@
+package by.northdakota.markettracker.Benchmark;
+
+// ответ card.wb.ru с набором полей, близким к реальному: цены лежат в глубине sizes[], вокруг много лишнего
+public final class WbCardFixtures {
+
+    private WbCardFixtures() {
+    }
+
+    public static long article(int index) {
+        return 100_000_000L + index;
+    }
+
+    public static String body(int products) {
+        StringBuilder sb = new StringBuilder("{\"state\":0,\"payloadVersion\":2,\"products\":[");
+        for (int i = 0; i < products; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            long price = 100_000 + (i * 137L) % 50_000;
+            sb.append("{\"id\":").append(article(i))
+                    .append(",\"root\":").append(200_000 + i)
+                    .append(",\"kindId\":0,\"brand\":\"Бренд ").append(i).append("\",\"brandId\":").append(i)
+                    .append(",\"siteBrandId\":0,\"colors\":[{\"name\":\"чёрный\",\"id\":0},{\"name\":\"белый\",\"id\":16777215}]")
+                    .append(",\"subjectId\":192,\"subjectParentId\":1,\"name\":\"Футболка-поло мужская хлопок ").append(i)
+                    .append("\",\"entity\":\"футболки-поло\",\"supplier\":\"ООО Поставщик\",\"supplierId\":").append(1000 + i)
+                    .append(",\"supplierRating\":4.8,\"supplierFlags\":0,\"pics\":12,\"rating\":5,\"reviewRating\":4.7")
+                    .append(",\"nmReviewRating\":4.7,\"feedbacks\":1532,\"nmFeedbacks\":1532,\"volume\":5,\"viewFlags\":0,\"sizes\":[");
+            for (int s = 0; s < 5; s++) {
+                if (s > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"name\":\"").append(44 + s * 2).append("\",\"origName\":\"").append(44 + s * 2)
+                        .append("\",\"rank\":").append(s).append(",\"optionId\":").append(300_000 + s)
+                        .append(",\"stocks\":[{\"wh\":507,\"dtype\":4,\"dist\":120,\"qty\":").append(s + 3)
+                        .append(",\"priority\":1,\"time1\":4,\"time2\":30},{\"wh\":117986,\"dtype\":4,\"dist\":300,\"qty\":2,\"priority\":2,\"time1\":6,\"time2\":48}]")
+                        .append(",\"time1\":4,\"time2\":30,\"wh\":507,\"dtype\":4,\"dist\":120")
+                        .append(",\"price\":{\"basic\":").append(price * 3).append(",\"product\":").append(price)
+                        .append(",\"logistics\":3000,\"return\":0},\"saleConditions\":0,\"payload\":\"dGVzdHBheWxvYWQ=\"}");
+            }
+            sb.append("],\"totalQuantity\":20,\"meta\":{\"tokens\":[],\"presetId\":0}}");
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,53 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WbCardParsingBenchmark {
+
+    @Param({"1", "100"})
+    private int products;
+
+    private final WbParser wbParser = new WbParser();
+    private String body;
+    private byte[] bodyBytes;
+
+    @Setup
+    public void setUp() {
+        body = WbCardFixtures.body(products);
+        bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // прежний путь: Jsoup HTML-парсер -> body().text() -> JSONObject -> toMap() цены и всей карточки
+    @Benchmark
+    public void jsoupAndJsonObject(Blackhole bh) {
+        JSONObject data = new JSONObject(Jsoup.parse(body).body().text());
+        JSONArray cards = data.getJSONArray("products");
+        for (int i = 0; i < cards.length(); i++) {
+            JSONObject single = new JSONObject().put("products", new JSONArray().put(cards.getJSONObject(i)));
+            bh.consume(wbParser.getPriceList(single).get("product"));
+            bh.consume(wbParser.getProductName(single));
+        }
+    }
+
+    @Benchmark
+    public Map<String, WbProductCard> streaming() throws IOException {
+        return wbParser.parseCards(new ByteArrayInputStream(bodyBytes));
+    }
+}
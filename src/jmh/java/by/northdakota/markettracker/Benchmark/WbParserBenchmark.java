@@ -0,0 +1,36 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WbParserBenchmark {
+
+    private final WbParser wbParser = new WbParser();
+    private JSONObject card;
+
+    @Setup
+    public void setUp() {
+        JSONArray products = new JSONObject(WbCardFixtures.body(1)).getJSONArray("products");
+        card = new JSONObject().put("products", products);
+    }
+
+    @Benchmark
+    public Map<String, Object> getPriceList() {
+        return wbParser.getPriceList(card);
+    }
+
+    @Benchmark
+    public String getProductName() {
+        return wbParser.getProductName(card);
+    }
+}
@@ -0,0 +1,65 @@
+package by.northdakota.markettracker.Benchmark;
+
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import by.northdakota.markettracker.Core.Service.WbTrackerService;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class WbSweepBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int items;
+
+    private StubWbDataProvider dataProvider;
+    private WbTrackerService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.quietLogs();
+        dataProvider = new StubWbDataProvider(100);
+        AtomicLong writes = new AtomicLong();
+        TrackedItemRepository trackedItems =
+                InMemoryRepositories.trackedItems(BenchmarkData.trackedItems(items, Marketplace.WB), writes);
+        PriceHistoryRepository priceHistory = InMemoryRepositories.priceHistory(writes);
+        service = new WbTrackerService(
+                dataProvider,
+                trackedItems,
+                priceHistory,
+                event -> { },
+                new SweepEngine(8, 2, Duration.ofMinutes(10), 1000),
+                new PriceUpdateWriter(trackedItems, priceHistory, 500),
+                new PriceStateTable(),
+                new PollScheduler(InMemoryRepositories.pollSchedule(), Clock.systemUTC(),
+                        Duration.ZERO, Duration.ZERO, Duration.ZERO, 0, Duration.ZERO, 500),
+                new ProductMetadataCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(15)));
+        service.warmPriceTable();
+    }
+
+    @Setup(Level.Iteration)
+    public void nextRound() {
+        dataProvider.nextRound();
+    }
+
+    @Benchmark
+    public void checkPrice() throws IOException {
+        service.checkPrice();
+    }
+}
@@ -0,0 +1,13 @@
+package by.northdakota.markettracker.Core.Catalog;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+import java.time.Instant;
+
+// salePrice есть только у Ozon (цена по карте)
+public record ProductMetadata(String title, Money basicPrice, Money currentPrice, Money salePrice, Instant fetchedAt) {
+
+    public ProductMetadata withPrices(Money basicPrice, Money currentPrice, Money salePrice, Instant fetchedAt) {
+        return new ProductMetadata(title, basicPrice, currentPrice, salePrice, fetchedAt);
+    }
+}
@@ -0,0 +1,82 @@
+package by.northdakota.markettracker.Core.Catalog;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+// карточка товара, недавно загруженная для одного чата, отдаётся другим без запроса к маркетплейсу;
+// одновременные загрузки одного артикула схлопываются в одну, ненайденные товары не кэшируются
+@Component
+public class ProductMetadataCache {
+
+    private final Cache<ProductKey, ProductMetadata> cache;
+    private final Clock clock;
+
+    @Autowired
+    public ProductMetadataCache(MeterRegistry meterRegistry,
+                                @Value("${product-cache.max-size:10000}") long maxSize,
+                                @Value("${product-cache.ttl:PT15M}") Duration ttl) {
+        this(meterRegistry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    ProductMetadataCache(MeterRegistry meterRegistry, long maxSize, Duration ttl, Clock clock) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.clock = clock;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product.metadata");
+    }
+
+    public Optional<ProductMetadata> get(Marketplace marketplace, String article, Loader loader) throws IOException {
+        try {
+            return Optional.ofNullable(cache.get(new ProductKey(marketplace, article), key -> {
+                try {
+                    return loader.load(clock);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // проверка цен обновляет только уже закэшированные карточки и продлевает им жизнь
+    public void refreshPrices(Marketplace marketplace, String article, Money basicPrice, Money currentPrice,
+                              Money salePrice) {
+        cache.asMap().computeIfPresent(new ProductKey(marketplace, article),
+                (key, metadata) -> metadata.withPrices(basicPrice, currentPrice, salePrice, clock.instant()));
+    }
+
+    public void invalidate(Marketplace marketplace, String article) {
+        cache.invalidate(new ProductKey(marketplace, article));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        // null, если товар не найден
+        ProductMetadata load(Clock clock) throws IOException;
+    }
+
+    private record ProductKey(Marketplace marketplace, String article) {
+    }
+}
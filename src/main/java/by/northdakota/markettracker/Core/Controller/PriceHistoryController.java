@@ -0,0 +1,95 @@
+package by.northdakota.markettracker.Core.Controller;
+
+import by.northdakota.markettracker.Core.Dto.PriceHistoryDto;
+import by.northdakota.markettracker.Core.Dto.PricePointDto;
+import by.northdakota.markettracker.Core.History.PriceHistoryService;
+import by.northdakota.markettracker.Core.History.PriceSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// id товаров последовательные и не привязаны к пользователю, поэтому API только для внутренних сервисов:
+// без price-history.api.token контроллер не поднимается, а запрос без этого токена получает 401
+@RestController
+@RequestMapping("/api/items/{itemId}")
+@ConditionalOnExpression("!'${price-history.api.token:}'.isBlank()")
+public class PriceHistoryController {
+
+    private static final int MAX_DAYS = 3650;
+    private static final String BEARER = "Bearer ";
+
+    private final PriceHistoryService priceHistoryService;
+    private final byte[] token;
+
+    public PriceHistoryController(PriceHistoryService priceHistoryService,
+                                  @Value("${price-history.api.token}") String token) {
+        this.priceHistoryService = priceHistoryService;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<PriceHistoryDto> history(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!authorized(authorization)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(priceHistoryService.history(itemId, start, end).map(this::toDto));
+    }
+
+    @GetMapping(value = "/chart.png", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> chart(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                        @PathVariable Long itemId,
+                                        @RequestParam(defaultValue = "30") int days) {
+        if (!authorized(authorization)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (days < 1 || days > MAX_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return priceHistoryService.chart(itemId, Duration.ofDays(days))
+                .map(png -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate())
+                        .contentType(MediaType.IMAGE_PNG)
+                        .body(png))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private boolean authorized(String authorization) {
+        return authorization != null && authorization.startsWith(BEARER)
+                && MessageDigest.isEqual(token, authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PriceHistoryDto toDto(PriceSeries series) {
+        return new PriceHistoryDto(
+                series.item().getId(),
+                series.item().getArticle(),
+                series.item().getTitle(),
+                series.item().getMarketplace(),
+                series.source(),
+                series.points().stream().map(PricePointDto::from).toList());
+    }
+}
@@ -0,0 +1,22 @@
+package by.northdakota.markettracker.Core.Dto;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceHistoryDto {
+    private Long itemId;
+    private String article;
+    private String title;
+    private Marketplace marketplace;
+    private String source;
+    private List<PricePointDto> points;
+}
@@ -0,0 +1,25 @@
+package by.northdakota.markettracker.Core.Dto;
+
+import by.northdakota.markettracker.Core.History.PricePoint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// цены в копейках
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PricePointDto {
+    private LocalDateTime timestamp;
+    private long min;
+    private long max;
+    private long last;
+
+    public static PricePointDto from(PricePoint point) {
+        return new PricePointDto(point.timestamp(), point.min().kopecks(), point.max().kopecks(), point.last().kopecks());
+    }
+}
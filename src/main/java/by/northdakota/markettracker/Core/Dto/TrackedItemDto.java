@@ -1,13 +1,12 @@
 package by.northdakota.markettracker.Core.Dto;
 
 import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
-
 @Getter
 @Setter
 @AllArgsConstructor
@@ -15,8 +14,8 @@ import java.math.BigDecimal;
 public class TrackedItemDto {
     private String article;
     private String title;
-    private BigDecimal currentPrice;
-    private BigDecimal basicPrice;
-    private BigDecimal salePrice;
+    private Money currentPrice;
+    private Money basicPrice;
+    private Money salePrice;
     private Marketplace marketplace;
 }
@@ -0,0 +1,68 @@
+package by.northdakota.markettracker.Core.Entity;
+
+// сумма в копейках; WB отдаёт цены сразу в копейках, у Ozon они приходят текстом в рублях
+public record Money(long kopecks) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofKopecks(long kopecks) {
+        return new Money(kopecks);
+    }
+
+    public static Money ofRubles(long rubles) {
+        return new Money(Math.multiplyExact(rubles, 100));
+    }
+
+    // разбирает цены вида "12 990 ₽" или "1 299,50 ₽": всё, кроме цифр и первого разделителя, пропускается
+    public static Money parse(CharSequence text) {
+        long rubles = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        boolean digits = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fractionDigits < 0) {
+                    rubles = Math.addExact(Math.multiplyExact(rubles, 10), c - '0');
+                } else if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                    fractionDigits++;
+                }
+            } else if ((c == ',' || c == '.') && fractionDigits < 0) {
+                fractionDigits = 0;
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Нет цифр в цене: " + text);
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        return new Money(Math.addExact(Math.multiplyExact(rubles, 100), fraction));
+    }
+
+    public long rubles() {
+        return kopecks / 100;
+    }
+
+    public boolean isZero() {
+        return kopecks == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(kopecks, other.kopecks);
+    }
+
+    // рубли, копейки только если они есть: "12990", "1299.50"
+    @Override
+    public String toString() {
+        long remainder = Math.abs(kopecks % 100);
+        if (remainder == 0) {
+            return Long.toString(kopecks / 100);
+        }
+        String sign = kopecks < 0 && kopecks > -100 ? "-" : "";
+        return sign + kopecks / 100 + (remainder < 10 ? ".0" : ".") + remainder;
+    }
+}
@@ -0,0 +1,18 @@
+package by.northdakota.markettracker.Core.Entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.kopecks();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long kopecks) {
+        return kopecks == null ? null : Money.ofKopecks(kopecks);
+    }
+}
@@ -0,0 +1,15 @@
+package by.northdakota.markettracker.Core.Entity;
+
+// oldSalePrice/newSalePrice заполнены, только если изменилась цена по карте
+public record PriceChangeEvent(Long chatId, Marketplace marketplace, String article, String title,
+                               Money oldPrice, Money newPrice, Money oldSalePrice, Money newSalePrice) {
+
+    public PriceChangeEvent(Long chatId, Marketplace marketplace, String article, String title,
+                            Money oldPrice, Money newPrice) {
+        this(chatId, marketplace, article, title, oldPrice, newPrice, null, null);
+    }
+
+    public boolean saleChanged() {
+        return oldSalePrice != null && newSalePrice != null && !oldSalePrice.equals(newSalePrice);
+    }
+}
@@ -6,7 +6,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Table(name="price_history")
@@ -23,10 +22,12 @@ public class PriceHistory {
             initialValue=1,allocationSize=20)
     @GeneratedValue(strategy = GenerationType.SEQUENCE,generator = "price_history_seq")
     private Long id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="item_id",nullable=false)
     private TrackedItem item;
-    private BigDecimal price;
+    @Column(nullable = false)
+    private Money price;
+    @Column(nullable = false)
     private LocalDateTime timestamp;
 
 }
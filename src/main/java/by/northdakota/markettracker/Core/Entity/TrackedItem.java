@@ -3,9 +3,6 @@ package by.northdakota.markettracker.Core.Entity;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
-import java.util.List;
-
 
 @Entity
 @Table(name="tracked_items")
@@ -27,18 +24,16 @@ public class TrackedItem {
     @Column(nullable = false)
     private String title;
     @Column(nullable = false)
-    private BigDecimal currentPrice;
+    private Money currentPrice;
     @Column(nullable = false)
-    private BigDecimal basicPrice;
+    private Money basicPrice;
     @Column
-    private BigDecimal salePrice;
+    private Money salePrice;
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private Marketplace marketplace;
     @Column(nullable = false)
     private Long chatId;
-    @OneToMany(mappedBy = "item", cascade = CascadeType.ALL,orphanRemoval = true)
-    private List<PriceHistory> priceHistory;
 
     @Override
     public String toString() {
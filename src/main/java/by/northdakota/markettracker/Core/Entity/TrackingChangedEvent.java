@@ -0,0 +1,5 @@
+package by.northdakota.markettracker.Core.Entity;
+
+// чат начал или перестал отслеживать товар
+public record TrackingChangedEvent(Long chatId) {
+}
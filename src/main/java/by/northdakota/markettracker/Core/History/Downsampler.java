@@ -0,0 +1,38 @@
+package by.northdakota.markettracker.Core.History;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// делит диапазон на равные интервалы и сворачивает точки каждого в min/max/last:
+// в отличие от LTTB сохраняет все минимумы, а ради падения цены график и смотрят
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    static List<PricePoint> minMax(List<PricePoint> points, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+        long width = Math.max(1, Duration.between(from, to).toNanos() / maxPoints);
+        List<PricePoint> result = new ArrayList<>(maxPoints);
+        long currentBucket = Long.MIN_VALUE;
+        PricePoint current = null;
+        for (PricePoint point : points) {
+            long bucket = Math.min(maxPoints - 1, Math.max(0, Duration.between(from, point.timestamp()).toNanos() / width));
+            if (current != null && bucket == currentBucket) {
+                current = current.merge(point);
+                continue;
+            }
+            if (current != null) {
+                result.add(current);
+            }
+            current = point;
+            currentBucket = bucket;
+        }
+        result.add(current);
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+package by.northdakota.markettracker.Core.History;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// рисует график в PNG: линия последней цены поверх полосы min/max каждого интервала
+@Component
+public class PriceChartRenderer {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 400;
+    private static final int LEFT = 80;
+    private static final int RIGHT = 20;
+    private static final int TOP = 40;
+    private static final int BOTTOM = 40;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd.MM.yy HH:mm");
+
+    private static final Color BAND = new Color(66, 133, 244, 60);
+    private static final Color LINE = new Color(66, 133, 244);
+    private static final Color GRID = new Color(225, 225, 225);
+
+    public byte[] render(String title, List<PricePoint> points) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.setColor(Color.DARK_GRAY);
+            g.setFont(g.getFont().deriveFont(Font.BOLD, 14f));
+            g.drawString(shorten(title, g.getFontMetrics(), WIDTH - LEFT - RIGHT), LEFT, TOP - 15);
+            g.setFont(g.getFont().deriveFont(Font.PLAIN, 11f));
+            if (points.isEmpty()) {
+                g.drawString("Нет данных за период", LEFT, HEIGHT / 2);
+            } else {
+                draw(g, points);
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return png.toByteArray();
+    }
+
+    private void draw(Graphics2D g, List<PricePoint> points) {
+        LocalDateTime start = points.get(0).timestamp();
+        LocalDateTime end = points.get(points.size() - 1).timestamp();
+        long span = Math.max(1, Duration.between(start, end).toSeconds());
+        long low = points.stream().mapToLong(p -> p.min().kopecks()).min().orElseThrow();
+        long high = points.stream().mapToLong(p -> p.max().kopecks()).max().orElseThrow();
+        if (low == high) {
+            low = Math.max(0, low - 100);
+            high += 100;
+        }
+        Scale scale = new Scale(start, span, low, high);
+
+        g.setColor(GRID);
+        for (int i = 0; i <= 4; i++) {
+            int y = TOP + (HEIGHT - TOP - BOTTOM) * i / 4;
+            g.drawLine(LEFT, y, WIDTH - RIGHT, y);
+        }
+
+        Path2D band = new Path2D.Double();
+        Path2D line = new Path2D.Double();
+        for (int i = 0; i < points.size(); i++) {
+            PricePoint point = points.get(i);
+            double x = scale.x(point.timestamp());
+            if (i == 0) {
+                band.moveTo(x, scale.y(point.max().kopecks()));
+                line.moveTo(x, scale.y(point.last().kopecks()));
+            } else {
+                band.lineTo(x, scale.y(point.max().kopecks()));
+                line.lineTo(x, scale.y(point.last().kopecks()));
+            }
+        }
+        for (int i = points.size() - 1; i >= 0; i--) {
+            PricePoint point = points.get(i);
+            band.lineTo(scale.x(point.timestamp()), scale.y(point.min().kopecks()));
+        }
+        band.closePath();
+        g.setColor(BAND);
+        g.fill(band);
+        g.setColor(LINE);
+        g.setStroke(new BasicStroke(2f));
+        g.draw(line);
+
+        g.setColor(Color.DARK_GRAY);
+        g.drawString(Money.ofKopecks(high) + " ₽", 5, TOP + 4);
+        g.drawString(Money.ofKopecks(low) + " ₽", 5, HEIGHT - BOTTOM + 4);
+        g.drawString(start.format(DATE), LEFT, HEIGHT - BOTTOM + 20);
+        String last = end.format(DATE);
+        g.drawString(last, WIDTH - RIGHT - g.getFontMetrics().stringWidth(last), HEIGHT - BOTTOM + 20);
+    }
+
+    private static String shorten(String title, FontMetrics metrics, int width) {
+        if (title == null) {
+            return "";
+        }
+        String result = title;
+        while (result.length() > 1 && metrics.stringWidth(result) > width) {
+            result = result.substring(0, result.length() - 2) + "…";
+        }
+        return result;
+    }
+
+    private record Scale(LocalDateTime start, long span, long low, long high) {
+
+        double x(LocalDateTime timestamp) {
+            return LEFT + (double) (WIDTH - LEFT - RIGHT) * Duration.between(start, timestamp).toSeconds() / span;
+        }
+
+        double y(long kopecks) {
+            return HEIGHT - BOTTOM - (double) (HEIGHT - TOP - BOTTOM) * (kopecks - low) / (high - low);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package by.northdakota.markettracker.Core.History;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// заводит месячные секции price_history заранее и удаляет целиком те, что вышли за срок хранения:
+// drop секции вместо delete не оставляет мёртвых строк и не требует vacuum
+@Component
+public class PriceHistoryPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryPartitionMaintainer.class);
+
+    static final String PARTITION_PREFIX = "price_history_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PARTITIONS = """
+            select c.relname from pg_inherits i
+            join pg_class c on c.oid = i.inhrelid
+            join pg_class p on p.oid = i.inhparent
+            where p.relname = 'price_history'""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final Period retention;
+    private final Period hourlyRetention;
+
+    public PriceHistoryPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                           @Value("${price-history.partitions-ahead:2}") int monthsAhead,
+                                           @Value("${price-history.retention:P6M}") Period retention,
+                                           @Value("${price-history.hourly-retention:P90D}") Period hourlyRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retention = retention;
+        this.hourlyRetention = hourlyRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${price-history.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        maintain(LocalDate.now());
+    }
+
+    void maintain(LocalDate today) {
+        YearMonth current = YearMonth.from(today);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute("create table if not exists %s partition of price_history for values from ('%s') to ('%s')"
+                    .formatted(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+
+        LocalDate cutoff = today.minus(retention);
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS, String.class)) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && !month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                jdbcTemplate.execute("drop table if exists " + partition);
+                dropped++;
+            }
+        }
+
+        // дневные агрегаты хранятся бессрочно, часовые нужны только для недавних графиков
+        int hourly = jdbcTemplate.update("delete from price_history_hourly where bucket < ?",
+                Timestamp.valueOf(today.minus(hourlyRetention).atStartOfDay()));
+        logger.info("Обслуживание истории цен: удалено секций {}, часовых агрегатов {}", dropped, hourly);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    private static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
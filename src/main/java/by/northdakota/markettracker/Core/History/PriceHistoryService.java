@@ -0,0 +1,125 @@
+package by.northdakota.markettracker.Core.History;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.RollupGranularity;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
+
+// короткие периоды читаются из сырой истории, длинные — из часовых и дневных агрегатов; источник берётся
+// только если его срок хранения покрывает начало периода, иначе старое окно читается из более грубого.
+// в ответ уходит не больше maxPoints точек, сколько бы строк ни лежало в базе
+@Service
+public class PriceHistoryService {
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final TrackedItemRepository trackedItemRepository;
+    private final PriceChartRenderer chartRenderer;
+    private final int maxPoints;
+    private final Duration rawRange;
+    private final Duration hourlyRange;
+    private final Period rawRetention;
+    private final Period hourlyRetention;
+    private final Clock clock;
+    private final Cache<ChartKey, byte[]> charts;
+
+    @Autowired
+    public PriceHistoryService(PriceHistoryRepository priceHistoryRepository,
+                               TrackedItemRepository trackedItemRepository,
+                               PriceChartRenderer chartRenderer,
+                               @Value("${price-history.max-points:200}") int maxPoints,
+                               @Value("${price-history.raw-range:P2D}") Duration rawRange,
+                               @Value("${price-history.hourly-range:P60D}") Duration hourlyRange,
+                               @Value("${price-history.retention:P6M}") Period rawRetention,
+                               @Value("${price-history.hourly-retention:P90D}") Period hourlyRetention,
+                               @Value("${price-history.chart.cache-size:1000}") long chartCacheSize,
+                               @Value("${price-history.chart.cache-ttl:PT1H}") Duration chartCacheTtl) {
+        this(priceHistoryRepository, trackedItemRepository, chartRenderer, maxPoints, rawRange, hourlyRange,
+                rawRetention, hourlyRetention, chartCacheSize, chartCacheTtl, Clock.systemDefaultZone());
+    }
+
+    PriceHistoryService(PriceHistoryRepository priceHistoryRepository,
+                        TrackedItemRepository trackedItemRepository,
+                        PriceChartRenderer chartRenderer,
+                        int maxPoints,
+                        Duration rawRange,
+                        Duration hourlyRange,
+                        Period rawRetention,
+                        Period hourlyRetention,
+                        long chartCacheSize,
+                        Duration chartCacheTtl,
+                        Clock clock) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.trackedItemRepository = trackedItemRepository;
+        this.chartRenderer = chartRenderer;
+        this.maxPoints = maxPoints;
+        this.rawRange = rawRange;
+        this.hourlyRange = hourlyRange;
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+        this.clock = clock;
+        this.charts = Caffeine.newBuilder()
+                .maximumSize(chartCacheSize)
+                .expireAfterWrite(chartCacheTtl)
+                .build();
+    }
+
+    public Optional<PriceSeries> history(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return trackedItemRepository.findById(itemId).map(item -> series(item, from, to));
+    }
+
+    public Optional<byte[]> chart(Long itemId, Duration range) {
+        return trackedItemRepository.findById(itemId).map(item -> chart(item, range));
+    }
+
+    public Optional<byte[]> chart(Long chatId, Marketplace marketplace, String article, Duration range) {
+        return trackedItemRepository.findByChatIdAndArticleAndMarketplace(chatId, article, marketplace)
+                .map(item -> chart(item, range));
+    }
+
+    // график зависит только от товара, периода и времени последней записи: пока цена не менялась,
+    // повторные запросы отдаются из кэша без чтения истории и отрисовки
+    private byte[] chart(TrackedItem item, Duration range) {
+        LocalDateTime lastUpdate = priceHistoryRepository.findLastTimestamp(item.getId()).orElse(null);
+        return charts.get(new ChartKey(item.getId(), range, lastUpdate), key -> {
+            LocalDateTime to = LocalDateTime.now(clock);
+            return chartRenderer.render(item.getTitle(), series(item, to.minus(range), to).points());
+        });
+    }
+
+    PriceSeries series(TrackedItem item, LocalDateTime from, LocalDateTime to) {
+        Duration range = Duration.between(from, to);
+        // сроки хранения отсчитываются от начала суток, как их чистит PriceHistoryPartitionMaintainer
+        LocalDateTime today = LocalDate.now(clock).atStartOfDay();
+        String source;
+        List<PricePoint> points;
+        if (range.compareTo(rawRange) <= 0 && !from.isBefore(today.minus(rawRetention))) {
+            source = "raw";
+            points = priceHistoryRepository.findPoints(item.getId(), from, to);
+        } else {
+            RollupGranularity granularity = range.compareTo(hourlyRange) <= 0
+                    && !from.isBefore(today.minus(hourlyRetention))
+                    ? RollupGranularity.HOURLY
+                    : RollupGranularity.DAILY;
+            source = granularity.name().toLowerCase();
+            points = priceHistoryRepository.findRollups(item.getId(), granularity, from, to);
+        }
+        return new PriceSeries(item, source, Downsampler.minMax(points, from, to, maxPoints));
+    }
+
+    private record ChartKey(Long itemId, Duration range, LocalDateTime lastUpdate) {
+    }
+}
@@ -0,0 +1,20 @@
+package by.northdakota.markettracker.Core.History;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+import java.time.LocalDateTime;
+
+// точка графика: для сырых записей min = max = last, для агрегатов и прореженных участков — границы интервала
+public record PricePoint(LocalDateTime timestamp, Money min, Money max, Money last) {
+
+    public static PricePoint of(LocalDateTime timestamp, Money price) {
+        return new PricePoint(timestamp, price, price, price);
+    }
+
+    PricePoint merge(PricePoint next) {
+        return new PricePoint(next.timestamp,
+                min.compareTo(next.min) <= 0 ? min : next.min,
+                max.compareTo(next.max) >= 0 ? max : next.max,
+                next.last);
+    }
+}
@@ -0,0 +1,8 @@
+package by.northdakota.markettracker.Core.History;
+
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+
+import java.util.List;
+
+public record PriceSeries(TrackedItem item, String source, List<PricePoint> points) {
+}
@@ -0,0 +1,104 @@
+package by.northdakota.markettracker.Core.Http;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+// по одному HttpClient на прокси из пула: соединения держатся в пуле и переиспользуются,
+// с HTTP/2 запросы одного хоста идут по одному соединению
+@Component
+public class MarketplaceHttpClient {
+
+    public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+            "(KHTML, like Gecko) Chrome/136.0.0.0 YaBrowser/25.6.0.0 Safari/537.36";
+
+    // ответы, после которых стоит попробовать другой прокси: сам прокси не смог или адрес упёрся в лимит
+    private static final Set<Integer> PROXY_FAILURE_STATUSES = Set.of(407, 429, 502, 503, 504);
+
+    private final ProxyPool proxyPool;
+    private final Map<ProxyEndpoint, HttpClient> clients = new LinkedHashMap<>();
+    private final HttpClient direct;
+    private final Duration readTimeout;
+
+    public MarketplaceHttpClient(ProxyPool proxyPool,
+                                 @Value("${marketplace.http.connect-timeout:PT5S}") Duration connectTimeout,
+                                 @Value("${marketplace.http.read-timeout:PT10S}") Duration readTimeout) {
+        this.proxyPool = proxyPool;
+        for (ProxyEndpoint proxy : proxyPool.proxies()) {
+            clients.put(proxy, builder(connectTimeout).proxy(ProxySelector.of(proxy.address())).build());
+        }
+        this.direct = proxyPool.isEmpty() ? builder(connectTimeout).build() : null;
+        this.readTimeout = readTimeout;
+    }
+
+    public MarketplaceResponse get(URI uri, Map<String, String> headers) throws IOException {
+        if (direct != null) {
+            return send(direct, uri, headers);
+        }
+        try (ProxyLease lease = proxyPool.acquire()) {
+            MarketplaceResponse response;
+            try {
+                response = send(clients.get(lease.proxy()), uri, headers);
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                lease.failure();
+                throw e;
+            }
+            if (PROXY_FAILURE_STATUSES.contains(response.status())) {
+                lease.failure();
+            } else {
+                lease.success();
+            }
+            return response;
+        }
+    }
+
+    private static HttpClient.Builder builder(Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+    }
+
+    private MarketplaceResponse send(HttpClient client, URI uri, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip");
+        headers.forEach(request::header);
+        try {
+            HttpResponse<byte[]> response = client.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+            return new MarketplaceResponse(response.statusCode(), response.headers(), decode(response));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Запрос к " + uri.getHost() + " прерван");
+        }
+    }
+
+    // HttpClient не распаковывает ответ сам
+    private static byte[] decode(HttpResponse<byte[]> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        if (!gzip || response.body().length == 0) {
+            return response.body();
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        }
+    }
+}
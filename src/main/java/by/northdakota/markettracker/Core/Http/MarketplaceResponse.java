@@ -0,0 +1,14 @@
+package by.northdakota.markettracker.Core.Http;
+
+import java.net.http.HttpHeaders;
+
+public record MarketplaceResponse(int status, HttpHeaders headers, byte[] body) {
+
+    public String header(String name) {
+        return headers.firstValue(name).orElse(null);
+    }
+
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+}
@@ -0,0 +1,24 @@
+package by.northdakota.markettracker.Core.Http;
+
+import java.net.InetSocketAddress;
+
+public record ProxyEndpoint(String host, int port) {
+
+    public static ProxyEndpoint parse(String proxy) {
+        String value = proxy.trim();
+        int colon = value.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Прокси должен быть в виде host:port: " + proxy);
+        }
+        return new ProxyEndpoint(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+    }
+
+    public InetSocketAddress address() {
+        return new InetSocketAddress(host, port);
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
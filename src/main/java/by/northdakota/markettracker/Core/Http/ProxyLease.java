@@ -0,0 +1,37 @@
+package by.northdakota.markettracker.Core.Http;
+
+import java.time.Duration;
+
+// занятый слот прокси; закрытие освобождает слот, success/failure обновляют оценку прокси
+public final class ProxyLease implements AutoCloseable {
+
+    private final ProxyPool pool;
+    private final ProxyEndpoint proxy;
+    private final long startNanos = System.nanoTime();
+    private boolean closed;
+
+    ProxyLease(ProxyPool pool, ProxyEndpoint proxy) {
+        this.pool = pool;
+        this.proxy = proxy;
+    }
+
+    public ProxyEndpoint proxy() {
+        return proxy;
+    }
+
+    public void success() {
+        pool.record(proxy, true, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    public void failure() {
+        pool.record(proxy, false, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(proxy);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package by.northdakota.markettracker.Core.Http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// прокси выбирается случайно с весом (1 - доля ошибок) / задержка; после нескольких ошибок подряд
+// прокси уходит на карантин с растущим сроком и возвращается, только когда снова принимает соединения
+@Component
+public class ProxyPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyPool.class);
+
+    private static final double ALPHA = 0.2;
+    private static final double INITIAL_LATENCY_MS = 500;
+    private static final int MAX_QUARANTINE_DOUBLINGS = 5;
+
+    private final Map<ProxyEndpoint, ProxyState> states = new LinkedHashMap<>();
+    private final int failureThreshold;
+    private final Duration quarantine;
+    private final Duration maxQuarantine;
+    private final Duration acquireTimeout;
+    private final Duration probeTimeout;
+
+    public ProxyPool(@Value("${marketplace.proxies:${selenium.proxyip:}}") List<String> proxies,
+                     @Value("${marketplace.proxy.max-concurrency:8}") int maxConcurrency,
+                     @Value("${marketplace.proxy.failure-threshold:3}") int failureThreshold,
+                     @Value("${marketplace.proxy.quarantine:PT1M}") Duration quarantine,
+                     @Value("${marketplace.proxy.max-quarantine:PT30M}") Duration maxQuarantine,
+                     @Value("${marketplace.proxy.acquire-timeout:PT30S}") Duration acquireTimeout,
+                     @Value("${marketplace.proxy.probe-timeout:PT2S}") Duration probeTimeout,
+                     MeterRegistry meterRegistry) {
+        for (String proxy : proxies) {
+            if (!proxy.isBlank()) {
+                states.putIfAbsent(ProxyEndpoint.parse(proxy), new ProxyState(maxConcurrency));
+            }
+        }
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.quarantine = quarantine;
+        this.maxQuarantine = maxQuarantine;
+        this.acquireTimeout = acquireTimeout;
+        this.probeTimeout = probeTimeout;
+        meterRegistry.gauge("marketplace.proxy.available", this, pool -> pool.available().size());
+        logger.info("Пул прокси: {}", states.keySet());
+    }
+
+    public List<ProxyEndpoint> proxies() {
+        return List.copyOf(states.keySet());
+    }
+
+    public boolean isEmpty() {
+        return states.isEmpty();
+    }
+
+    public boolean isAvailable(ProxyEndpoint proxy) {
+        ProxyState state = states.get(proxy);
+        return state != null && !state.awaitingProbe();
+    }
+
+    // сначала без ожидания перебираются прокси в порядке взвешенной выборки, и только если все заняты,
+    // запрос ждёт освобождения слота у выбранного по весу
+    public ProxyLease acquire() throws IOException {
+        List<ProxyEndpoint> order = weightedOrder(available());
+        if (order.isEmpty()) {
+            throw new IOException("Нет доступных прокси: все на карантине");
+        }
+        for (ProxyEndpoint proxy : order) {
+            if (states.get(proxy).permits.tryAcquire()) {
+                return new ProxyLease(this, proxy);
+            }
+        }
+        ProxyEndpoint proxy = order.get(0);
+        try {
+            if (!states.get(proxy).permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IOException("Нет свободных соединений через прокси за " + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание прокси прервано");
+        }
+        return new ProxyLease(this, proxy);
+    }
+
+    // для долгих сессий Selenium: выбор по весу без занятия слота, результат сообщается через record
+    public Optional<ProxyEndpoint> choose() {
+        List<ProxyEndpoint> order = weightedOrder(available());
+        return order.isEmpty() ? Optional.empty() : Optional.of(order.get(0));
+    }
+
+    public void record(ProxyEndpoint proxy, boolean success, Duration latency) {
+        ProxyState state = states.get(proxy);
+        if (state == null) {
+            return;
+        }
+        boolean quarantined = state.record(success, latency.toNanos() / 1_000_000.0, System.nanoTime());
+        if (quarantined) {
+            logger.warn("Прокси {} на карантине после {} ошибок подряд", proxy, failureThreshold);
+        }
+    }
+
+    // проверка соединением: прокси с истёкшим карантином возвращается в работу, только если принимает TCP
+    @Scheduled(fixedDelayString = "${marketplace.proxy.probe-interval:PT30S}")
+    public void probeQuarantined() {
+        long now = System.nanoTime();
+        states.forEach((proxy, state) -> {
+            if (state.isQuarantined(now) || !state.awaitingProbe()) {
+                return;
+            }
+            if (probe(proxy)) {
+                state.release();
+                logger.info("Прокси {} снова доступен", proxy);
+            } else {
+                state.quarantine(System.nanoTime());
+                logger.warn("Прокси {} не отвечает, карантин продлён", proxy);
+            }
+        });
+    }
+
+    Map<ProxyEndpoint, Double> weights() {
+        Map<ProxyEndpoint, Double> weights = new LinkedHashMap<>();
+        states.forEach((proxy, state) -> weights.put(proxy, state.weight()));
+        return weights;
+    }
+
+    private List<ProxyEndpoint> available() {
+        long now = System.nanoTime();
+        List<ProxyEndpoint> available = new ArrayList<>();
+        states.forEach((proxy, state) -> {
+            if (!state.isQuarantined(now) && !state.awaitingProbe()) {
+                available.add(proxy);
+            }
+        });
+        return available;
+    }
+
+    private List<ProxyEndpoint> weightedOrder(List<ProxyEndpoint> candidates) {
+        List<ProxyEndpoint> remaining = new ArrayList<>(candidates);
+        List<ProxyEndpoint> order = new ArrayList<>(remaining.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!remaining.isEmpty()) {
+            double total = 0;
+            for (ProxyEndpoint proxy : remaining) {
+                total += states.get(proxy).weight();
+            }
+            double point = random.nextDouble(total);
+            int index = 0;
+            for (; index < remaining.size() - 1; index++) {
+                point -= states.get(remaining.get(index)).weight();
+                if (point < 0) {
+                    break;
+                }
+            }
+            order.add(remaining.remove(index));
+        }
+        return order;
+    }
+
+    private boolean probe(ProxyEndpoint proxy) {
+        try (Socket socket = new Socket()) {
+            socket.connect(proxy.address(), (int) probeTimeout.toMillis());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void release(ProxyEndpoint proxy) {
+        states.get(proxy).permits.release();
+    }
+
+    private final class ProxyState {
+
+        private final Semaphore permits;
+        private double latencyMs = INITIAL_LATENCY_MS;
+        private double errorRate;
+        private int consecutiveFailures;
+        private int quarantines;
+        private long quarantinedUntil;
+        private boolean awaitingProbe;
+
+        private ProxyState(int maxConcurrency) {
+            this.permits = new Semaphore(Math.max(maxConcurrency, 1));
+        }
+
+        synchronized double weight() {
+            return Math.max(1 - errorRate, 0.01) / Math.max(latencyMs, 1);
+        }
+
+        synchronized boolean isQuarantined(long now) {
+            return awaitingProbe && now - quarantinedUntil < 0;
+        }
+
+        synchronized boolean awaitingProbe() {
+            return awaitingProbe;
+        }
+
+        synchronized boolean record(boolean success, double latency, long now) {
+            errorRate = errorRate * (1 - ALPHA) + (success ? 0 : ALPHA);
+            if (success) {
+                latencyMs = latencyMs * (1 - ALPHA) + latency * ALPHA;
+                consecutiveFailures = 0;
+                quarantines = 0;
+                return false;
+            }
+            consecutiveFailures++;
+            if (consecutiveFailures >= failureThreshold && !awaitingProbe) {
+                quarantine(now);
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void quarantine(long now) {
+            Duration period = quarantine.multipliedBy(1L << Math.min(quarantines, MAX_QUARANTINE_DOUBLINGS));
+            if (period.compareTo(maxQuarantine) > 0) {
+                period = maxQuarantine;
+            }
+            quarantines++;
+            awaitingProbe = true;
+            quarantinedUntil = now + period.toNanos();
+        }
+
+        // после карантина прокси получает один шанс: следующая ошибка подряд снова отправит его на карантин
+        synchronized void release() {
+            awaitingProbe = false;
+            consecutiveFailures = failureThreshold - 1;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package by.northdakota.markettracker.Core.Parser.Ozon;
+
+import by.northdakota.markettracker.Core.Http.MarketplaceHttpClient;
+import by.northdakota.markettracker.Core.Http.MarketplaceResponse;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class OzonHttpDataProvider {
+
+    private final String url = "https://www.ozon.ru/product/";
+
+    private final MarketplaceHttpClient httpClient;
+
+    public Document getProductPage(String productArticle) throws IOException {
+        MarketplaceResponse response = httpClient.get(URI.create(url + productArticle),
+                Map.of("Accept-Language", "ru-RU,ru;q=0.9"));
+        if (!response.isSuccessful()) {
+            throw new IOException("Ozon ответил " + response.status());
+        }
+        return Jsoup.parse(new ByteArrayInputStream(response.body()), null, url + productArticle);
+    }
+}
@@ -1,27 +1,66 @@
 package by.northdakota.markettracker.Core.Parser.Ozon;
 
+import by.northdakota.markettracker.Core.Entity.Money;
 import lombok.RequiredArgsConstructor;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class OzonParser {
 
+    private final Logger logger = LoggerFactory.getLogger(OzonParser.class);
+
     private final OzonDataProvider dataProvider;
+    private final OzonHttpDataProvider httpDataProvider;
+
+    public OzonProductData getProductData(String productArticle) {
+        try {
+            Optional<OzonProductData> data = parseDocument(httpDataProvider.getProductPage(productArticle));
+            if (data.isPresent()) {
+                return data.get();
+            }
+            logger.info("Цена товара {} не найдена в HTML, загружаем страницу через Selenium", productArticle);
+        } catch (IOException e) {
+            logger.info("Не удалось получить страницу товара {} по HTTP ({}), загружаем через Selenium",
+                    productArticle, e.getMessage());
+        }
+        return dataProvider.readProductPage(productArticle,
+                        driver -> new OzonProductData(getProductName(driver), getPriceList(driver)))
+                .orElseGet(OzonProductData::empty);
+    }
 
-    public WebDriver getDataDriver(String productArticle) {
-        return dataProvider.getProductDataDriver(productArticle);
+    // порядок цен такой же, как у getPriceList: с картой, без карты, базовая
+    public Optional<OzonProductData> parseDocument(Document document) {
+        Element heading = document.selectFirst("div[data-widget=webProductHeading] h1");
+        if (heading == null || heading.text().isBlank()) {
+            return Optional.empty();
+        }
+        List<Money> priceList = parseWidgetState(document);
+        if (priceList.isEmpty()) {
+            priceList = parsePriceSpans(document);
+        }
+        if (priceList.size() < 3) {
+            return Optional.empty();
+        }
+        return Optional.of(new OzonProductData(heading.text(), priceList));
     }
 
-    public List<BigDecimal> getPriceList(WebDriver driver){
-        List<BigDecimal> priceList = new ArrayList<>();
+    public List<Money> getPriceList(WebDriver driver){
+        List<Money> priceList = new ArrayList<>();
 
         WebElement priceContainer = driver.findElement(By.cssSelector("div[data-widget='webPrice']"));
 
@@ -30,9 +69,7 @@ public class OzonParser {
 
 
         for (WebElement span : priceSpans) {
-            String rawPrice = span.getText().replaceAll("[^\\d,\\.]", "").replace(',', '.');
-            BigDecimal price = new BigDecimal(rawPrice);
-            priceList.add(price);
+            priceList.add(parsePrice(span.getText()));
         }
         return priceList;
     }
@@ -41,8 +78,40 @@ public class OzonParser {
         return driver.findElement(By.cssSelector("div[data-widget='webProductHeading'] h1")).getText();
     }
 
-    public void closeDriver(){
-        this.dataProvider.close();
+    public Money parsePrice(String rawPrice) {
+        return Money.parse(rawPrice);
+    }
+
+    private List<Money> parseWidgetState(Document document) {
+        Element state = document.selectFirst("div[id^=state-webPrice-][data-state]");
+        if (state == null) {
+            return List.of();
+        }
+        try {
+            JSONObject json = new JSONObject(state.attr("data-state"));
+            String price = json.optString("price", "");
+            if (price.isBlank()) {
+                return List.of();
+            }
+            String cardPrice = json.optString("cardPrice", price);
+            String originalPrice = json.optString("originalPrice", price);
+            return List.of(parsePrice(cardPrice), parsePrice(price), parsePrice(originalPrice));
+        } catch (JSONException | NumberFormatException e) {
+            logger.info("Не удалось разобрать состояние виджета webPrice: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<Money> parsePriceSpans(Document document) {
+        List<Money> priceList = new ArrayList<>();
+        for (Element span : document.select("div[data-widget=webPrice] span:containsOwn(₽)")) {
+            try {
+                priceList.add(parsePrice(span.ownText()));
+            } catch (NumberFormatException e) {
+                return List.of();
+            }
+        }
+        return priceList;
     }
 
 }
@@ -0,0 +1,13 @@
+package by.northdakota.markettracker.Core.Parser.Ozon;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+import java.util.List;
+
+public record OzonProductData(String name, List<Money> priceList) {
+
+    // страница не загрузилась: ни названия, ни цен
+    public static OzonProductData empty() {
+        return new OzonProductData(null, List.of());
+    }
+}
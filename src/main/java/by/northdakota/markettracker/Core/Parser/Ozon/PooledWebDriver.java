@@ -0,0 +1,33 @@
+package by.northdakota.markettracker.Core.Parser.Ozon;
+
+import by.northdakota.markettracker.Core.Http.ProxyEndpoint;
+import lombok.Getter;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+
+@Getter
+public class PooledWebDriver {
+
+    private final WebDriver driver;
+    private final ProxyEndpoint proxy;
+    private int pages;
+    private long borrowedAt;
+
+    PooledWebDriver(WebDriver driver, ProxyEndpoint proxy) {
+        this.driver = driver;
+        this.proxy = proxy;
+    }
+
+    void borrowed() {
+        borrowedAt = System.nanoTime();
+    }
+
+    Duration sinceBorrowed() {
+        return Duration.ofNanos(System.nanoTime() - borrowedAt);
+    }
+
+    void pageLoaded() {
+        pages++;
+    }
+}
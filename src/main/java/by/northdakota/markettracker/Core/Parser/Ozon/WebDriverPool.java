@@ -0,0 +1,173 @@
+package by.northdakota.markettracker.Core.Parser.Ozon;
+
+import by.northdakota.markettracker.Core.Http.ProxyEndpoint;
+import by.northdakota.markettracker.Core.Http.ProxyPool;
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class WebDriverPool {
+
+    private final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final ConcurrentLinkedDeque<PooledWebDriver> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore slots;
+    private final int minIdle;
+    private final int maxPages;
+    private final Duration borrowTimeout;
+    private final ProxyPool proxyPool;
+
+    @Value("${selenium.url}")
+    private String url;
+
+    public WebDriverPool(ProxyPool proxyPool,
+                         @Value("${selenium.pool.size:2}") int size,
+                         @Value("${selenium.pool.min-idle:2}") int minIdle,
+                         @Value("${selenium.pool.max-pages:50}") int maxPages,
+                         @Value("${selenium.pool.borrow-timeout:PT2M}") Duration borrowTimeout) {
+        this.proxyPool = proxyPool;
+        this.slots = new Semaphore(size, true);
+        this.minIdle = Math.min(minIdle, size);
+        this.maxPages = maxPages;
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public PooledWebDriver borrow() {
+        try {
+            if (!slots.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Нет свободных сессий Selenium за " + borrowTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание сессии Selenium прервано", e);
+        }
+        try {
+            PooledWebDriver pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (hasUsableProxy(pooled) && isAlive(pooled)) {
+                    pooled.borrowed();
+                    return pooled;
+                }
+                quit(pooled);
+            }
+            ProxyEndpoint proxy = proxyPool.choose().orElse(null);
+            if (proxy == null && !proxyPool.isEmpty()) {
+                throw new IllegalStateException("Нет доступных прокси для Selenium: все на карантине");
+            }
+            pooled = new PooledWebDriver(createDriver(proxy), proxy);
+            pooled.borrowed();
+            return pooled;
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    // сессии открываются заранее, чтобы первая проверка цен не ждала холодного старта браузера на каждой странице;
+    // недоступный Selenium не мешает запуску — недостающие сессии создаст borrow
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int opened = 0;
+        while (idle.size() < minIdle && slots.tryAcquire()) {
+            try {
+                ProxyEndpoint proxy = proxyPool.choose().orElse(null);
+                if (proxy == null && !proxyPool.isEmpty()) {
+                    logger.warn("Сессии Selenium не открыты заранее: все прокси на карантине");
+                    break;
+                }
+                idle.offerLast(new PooledWebDriver(createDriver(proxy), proxy));
+                opened++;
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось заранее открыть сессию Selenium: {}", e.getMessage());
+                break;
+            } finally {
+                slots.release();
+            }
+        }
+        logger.info("Открыто сессий Selenium заранее: {} из {}", opened, minIdle);
+    }
+
+    public void release(PooledWebDriver pooled, boolean broken) {
+        try {
+            pooled.pageLoaded();
+            if (pooled.getProxy() != null) {
+                proxyPool.record(pooled.getProxy(), !broken, pooled.sinceBorrowed());
+            }
+            if (broken || pooled.getPages() >= maxPages) {
+                quit(pooled);
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        PooledWebDriver pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            quit(pooled);
+        }
+    }
+
+    protected WebDriver createDriver(ProxyEndpoint proxy) {
+        ChromeOptions options = new ChromeOptions();
+        if (proxy != null) {
+            Proxy seleniumProxy = new Proxy();
+            seleniumProxy.setHttpProxy(proxy.toString());
+            seleniumProxy.setSslProxy(proxy.toString());
+            options.setProxy(seleniumProxy);
+        }
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("--window-size=1920,1080");
+        options.setExperimentalOption("excludeSwitches", List.of("enable-automation"));
+        options.setExperimentalOption("useAutomationExtension", false);
+        options.addArguments("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/136.0.0.0 YaBrowser/25.6.0.0 Safari/537.36");
+        try {
+            return new RemoteWebDriver(new URL(url), options);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Некорректный selenium.url: " + url, e);
+        }
+    }
+
+    // сессия привязана к прокси на всё время жизни; если прокси ушёл на карантин, сессию пересоздаём
+    private boolean hasUsableProxy(PooledWebDriver pooled) {
+        return pooled.getProxy() == null || proxyPool.isAvailable(pooled.getProxy());
+    }
+
+    private boolean isAlive(PooledWebDriver pooled) {
+        try {
+            pooled.getDriver().getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            logger.info("Сессия Selenium не отвечает, пересоздаём: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void quit(PooledWebDriver pooled) {
+        try {
+            pooled.getDriver().quit();
+        } catch (RuntimeException e) {
+            logger.info("Не удалось закрыть сессию Selenium: {}", e.getMessage());
+        }
+    }
+}
@@ -1,33 +1,120 @@
 package by.northdakota.markettracker.Core.Parser.WB;
 
-import org.json.JSONObject;
-import org.jsoup.Jsoup;
-import org.openqa.selenium.Proxy;
+import by.northdakota.markettracker.Core.Http.MarketplaceHttpClient;
+import by.northdakota.markettracker.Core.Http.MarketplaceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
 
 @Component
 public class WbDataProvider {
+
+    private static final int NOT_MODIFIED = 304;
+
     private final String url = "https://card.wb.ru/cards/v4/" +
             "detail?appType=1&curr=rub&dest=-1257786&spp=30&ab_testing=false&lang=ru&nm=";
 
-    @Value("${selenium.proxyip}")
-    private String proxyUrl;
-
-
-    public JSONObject getProductData(String productArticle) throws IOException {
-        String[] parts = proxyUrl.split(":");
-        String proxyHost = parts[0];
-        int proxyPort = Integer.parseInt(parts[1]);
-        String doc = Jsoup.connect(url+productArticle)
-                .ignoreContentType(true)
-                .proxy(proxyHost, proxyPort)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/136.0.0.0 YaBrowser/25.6.0.0 Safari/537.36")
-                .get()
-                .body()
-                .text();
-        return new JSONObject(doc);
+    private final WbParser wbParser;
+    private final MarketplaceHttpClient httpClient;
+    private final Cache<String, CachedCard> fingerprints;
+    private final Counter notModified;
+    private final Counter unchanged;
+    private final Counter changed;
+
+    @Value("${wb.batch-size:100}")
+    private int batchSize;
+
+    public WbDataProvider(WbParser wbParser,
+                          MarketplaceHttpClient httpClient,
+                          MeterRegistry meterRegistry,
+                          @Value("${wb.fingerprint.cache-size:100000}") long fingerprintCacheSize,
+                          @Value("${wb.fingerprint.ttl:PT6H}") Duration fingerprintTtl) {
+        this.wbParser = wbParser;
+        this.httpClient = httpClient;
+        this.fingerprints = Caffeine.newBuilder()
+                .maximumSize(fingerprintCacheSize)
+                .expireAfterAccess(fingerprintTtl)
+                .build();
+        this.notModified = meterRegistry.counter("wb.cards.fetch", "result", "not_modified");
+        this.unchanged = meterRegistry.counter("wb.cards.fetch", "result", "unchanged");
+        this.changed = meterRegistry.counter("wb.cards.fetch", "result", "changed");
+    }
+
+    // отпечаток хранится по артикулу: состав batch'ей меняется от проверки к проверке, так что ключ по всему
+    // набору почти никогда не совпадал. цены сверяются парсером прямо из потока, и для карточки с прежними ценами
+    // и названием новый объект не собирается. ETag/Last-Modified WB отдаёт на весь ответ, поэтому условный
+    // запрос шлётся только для одиночного артикула; batch'и проверки цен всегда приходят целиком
+    public Map<String, WbProductCard> getProductCards(List<String> productArticles) throws IOException {
+        String query = String.join(";", productArticles);
+        boolean single = productArticles.size() == 1;
+        CachedCard cached = single ? fingerprints.getIfPresent(productArticles.get(0)) : null;
+        WbResponse response = cached == null
+                ? fetch(query, null, null)
+                : fetch(query, cached.etag(), cached.lastModified());
+        if (cached != null && response.status() == NOT_MODIFIED) {
+            notModified.increment();
+            return Map.of(productArticles.get(0), cached.card());
+        }
+        Map<String, WbProductCard> cards = wbParser.parseCards(new ByteArrayInputStream(response.body()), article -> {
+            CachedCard previous = fingerprints.getIfPresent(article);
+            return previous == null ? null : previous.card();
+        });
+        cards.forEach((article, card) -> {
+            CachedCard previous = fingerprints.getIfPresent(article);
+            if (previous != null && previous.card() == card) {
+                unchanged.increment();
+            } else {
+                changed.increment();
+            }
+            fingerprints.put(article, single
+                    ? new CachedCard(response.etag(), response.lastModified(), card)
+                    : new CachedCard(null, null, card));
+        });
+        return cards;
+    }
+
+    public WbResponse fetch(String productArticles, String etag, String lastModified) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (etag != null) {
+            headers.put("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        MarketplaceResponse response = httpClient.get(URI.create(url + productArticles), headers);
+        if (!response.isSuccessful() && response.status() != NOT_MODIFIED) {
+            throw new IOException("WB ответил " + response.status() + " на запрос карточек");
+        }
+        return new WbResponse(response.status(), response.header("ETag"), response.header("Last-Modified"),
+                response.body());
+    }
+
+    public Map<String, WbProductCard> getProductsData(Collection<String> productArticles) throws IOException {
+        List<String> articles = new ArrayList<>(new LinkedHashSet<>(productArticles));
+        Map<String, WbProductCard> result = new HashMap<>();
+        for (int from = 0; from < articles.size(); from += batchSize) {
+            List<String> chunk = articles.subList(from, Math.min(from + batchSize, articles.size()));
+            result.putAll(getProductCards(chunk));
+        }
+        return result;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public record WbResponse(int status, String etag, String lastModified, byte[] body) {
+    }
+
+    private record CachedCard(String etag, String lastModified, WbProductCard card) {
     }
 }
@@ -1,14 +1,24 @@
 package by.northdakota.markettracker.Core.Parser.WB;
 
+import by.northdakota.markettracker.Core.Entity.Money;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 @Component
 public class WbParser {
 
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     public String getProductName(JSONObject productData){
         JSONArray productArr = productData.getJSONArray("products");
         Object productName = productArr.getJSONObject(0).toMap().get("name");
@@ -24,5 +34,104 @@ public class WbParser {
         return price.toMap();
     }
 
+    // читает из ответа только products[].id, name и sizes[0].price, остальное пропускается без разбора
+    public Map<String, WbProductCard> parseCards(InputStream in) throws IOException {
+        return parseCards(in, article -> null);
+    }
+
+    // known отдаёт карточку артикула с прошлой проверки: если цены в копейках и название в ответе те же,
+    // возвращается она, и новая карточка не собирается
+    public Map<String, WbProductCard> parseCards(InputStream in, Function<String, WbProductCard> known) throws IOException {
+        Map<String, WbProductCard> cards = new HashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return cards;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (!"products".equals(field) || token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    WbProductCard card = readCard(parser, known);
+                    if (card != null) {
+                        cards.put(String.valueOf(card.id()), card);
+                    }
+                }
+            }
+        }
+        return cards;
+    }
+
+    private WbProductCard readCard(JsonParser parser, Function<String, WbProductCard> known) throws IOException {
+        long id = 0;
+        String name = null;
+        long[] price = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsLong();
+                case "name" -> name = parser.getValueAsString();
+                case "sizes" -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        price = readFirstSizePrice(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (id == 0 || name == null || price == null) {
+            return null;
+        }
+        WbProductCard previous = known.apply(String.valueOf(id));
+        if (previous != null && previous.basicPrice().kopecks() == price[0]
+                && previous.productPrice().kopecks() == price[1] && previous.name().equals(name)) {
+            return previous;
+        }
+        return new WbProductCard(id, name, Money.ofKopecks(price[0]), Money.ofKopecks(price[1]));
+    }
+
+    private long[] readFirstSizePrice(JsonParser parser) throws IOException {
+        long[] price = null;
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("price".equals(field) && token == JsonToken.START_OBJECT) {
+                    price = readPrice(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (parser.currentToken() == JsonToken.END_ARRAY) {
+            return null;
+        } else {
+            parser.skipChildren();
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+        }
+        return price;
+    }
+
+    private long[] readPrice(JsonParser parser) throws IOException {
+        long basic = -1;
+        long product = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "basic" -> basic = parser.getValueAsLong();
+                case "product" -> product = parser.getValueAsLong();
+                default -> parser.skipChildren();
+            }
+        }
+        return basic < 0 || product < 0 ? null : new long[]{basic, product};
+    }
 
 }
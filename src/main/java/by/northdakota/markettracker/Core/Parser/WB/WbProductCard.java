@@ -0,0 +1,6 @@
+package by.northdakota.markettracker.Core.Parser.WB;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+public record WbProductCard(long id, String name, Money basicPrice, Money productPrice) {
+}
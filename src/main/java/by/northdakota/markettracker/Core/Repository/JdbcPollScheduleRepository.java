@@ -0,0 +1,64 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Sweep.PollCheckpoint;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class JdbcPollScheduleRepository implements PollScheduleRepository {
+
+    private static final String SELECT =
+            "select article, next_check_at, interval_ms from poll_schedule where marketplace = ?";
+    private static final String UPSERT = """
+            insert into poll_schedule (marketplace, article, next_check_at, interval_ms)
+            values (?, ?, ?, ?)
+            on conflict (marketplace, article) do update set
+                next_check_at = excluded.next_check_at,
+                interval_ms = excluded.interval_ms""";
+    private static final String DELETE = "delete from poll_schedule where marketplace = ? and article = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcPollScheduleRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, PollCheckpoint> findAll(Marketplace marketplace) {
+        Map<String, PollCheckpoint> checkpoints = new HashMap<>();
+        jdbcTemplate.query(SELECT, rs -> {
+            PollCheckpoint checkpoint = new PollCheckpoint(rs.getString(1),
+                    rs.getTimestamp(2).toInstant(), Duration.ofMillis(rs.getLong(3)));
+            checkpoints.put(checkpoint.article(), checkpoint);
+        }, marketplace.name());
+        return checkpoints;
+    }
+
+    @Override
+    public void saveAll(Marketplace marketplace, Collection<PollCheckpoint> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT, checkpoints.stream()
+                .map(c -> new Object[]{marketplace.name(), c.article(),
+                        Timestamp.from(c.nextCheckAt()), c.interval().toMillis()})
+                .toList());
+    }
+
+    @Override
+    public void deleteAll(Marketplace marketplace, Collection<String> articles) {
+        if (articles.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = articles.stream().map(a -> new Object[]{marketplace.name(), a}).toList();
+        jdbcTemplate.batchUpdate(DELETE, rows);
+    }
+}
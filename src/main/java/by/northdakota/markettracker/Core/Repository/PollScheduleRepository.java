@@ -0,0 +1,16 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Sweep.PollCheckpoint;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface PollScheduleRepository {
+
+    Map<String, PollCheckpoint> findAll(Marketplace marketplace);
+
+    void saveAll(Marketplace marketplace, Collection<PollCheckpoint> checkpoints);
+
+    void deleteAll(Marketplace marketplace, Collection<String> articles);
+}
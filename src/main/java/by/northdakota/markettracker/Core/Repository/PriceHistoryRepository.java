@@ -1,7 +1,21 @@
 package by.northdakota.markettracker.Core.Repository;
 
 import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.History.PricePoint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long>, PriceRollups {
+
+    @Query("select new by.northdakota.markettracker.Core.History.PricePoint(h.timestamp, h.price, h.price, h.price) " +
+            "from PriceHistory h where h.item.id = :itemId and h.timestamp >= :from and h.timestamp < :to " +
+            "order by h.timestamp")
+    List<PricePoint> findPoints(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    @Query("select max(h.timestamp) from PriceHistory h where h.item.id = :itemId")
+    Optional<LocalDateTime> findLastTimestamp(Long itemId);
 }
@@ -0,0 +1,16 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.History.PricePoint;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PriceRollups {
+
+    // дополняет часовые и дневные агрегаты теми же точками, что пишутся в price_history
+    void recordRollups(Collection<PriceHistory> history);
+
+    List<PricePoint> findRollups(Long itemId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+}
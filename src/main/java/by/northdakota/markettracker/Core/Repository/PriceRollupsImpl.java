@@ -0,0 +1,91 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.History.PricePoint;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PriceRollupsImpl implements PriceRollups {
+
+    private static final String UPSERT = """
+            insert into %s as r (item_id, bucket, min_price, max_price, last_price, last_at)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict (item_id, bucket) do update set
+                min_price = least(r.min_price, excluded.min_price),
+                max_price = greatest(r.max_price, excluded.max_price),
+                last_price = case when excluded.last_at >= r.last_at then excluded.last_price else r.last_price end,
+                last_at = greatest(r.last_at, excluded.last_at)""";
+    private static final String SELECT = """
+            select bucket, min_price, max_price, last_price from %s
+            where item_id = ? and bucket >= ? and bucket < ?
+            order by bucket""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceRollupsImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void recordRollups(Collection<PriceHistory> history) {
+        if (history.isEmpty()) {
+            return;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.batchUpdate(UPSERT.formatted(granularity.table()), rows(aggregate(history, granularity)));
+        }
+    }
+
+    @Override
+    public List<PricePoint> findRollups(Long itemId, RollupGranularity granularity,
+                                        LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT.formatted(granularity.table()),
+                (rs, row) -> new PricePoint(rs.getTimestamp(1).toLocalDateTime(),
+                        Money.ofKopecks(rs.getLong(2)),
+                        Money.ofKopecks(rs.getLong(3)),
+                        Money.ofKopecks(rs.getLong(4))),
+                itemId, Timestamp.valueOf(granularity.bucket(from)), Timestamp.valueOf(to));
+    }
+
+    // строки с одинаковым ключом сворачиваются заранее: в одном многострочном insert
+    // (reWriteBatchedInserts) on conflict не может дважды обновить одну и ту же строку
+    static Collection<Rollup> aggregate(Collection<PriceHistory> history, RollupGranularity granularity) {
+        Map<Key, Rollup> rollups = new LinkedHashMap<>();
+        for (PriceHistory point : history) {
+            Key key = new Key(point.getItem().getId(), granularity.bucket(point.getTimestamp()));
+            Rollup rollup = new Rollup(key.itemId(), key.bucket(), point.getPrice().kopecks(),
+                    point.getPrice().kopecks(), point.getPrice().kopecks(), point.getTimestamp());
+            rollups.merge(key, rollup, Rollup::merge);
+        }
+        return rollups.values();
+    }
+
+    private static List<Object[]> rows(Collection<Rollup> rollups) {
+        List<Object[]> rows = new ArrayList<>(rollups.size());
+        for (Rollup rollup : rollups) {
+            rows.add(new Object[]{rollup.itemId(), Timestamp.valueOf(rollup.bucket()), rollup.min(),
+                    rollup.max(), rollup.last(), Timestamp.valueOf(rollup.lastAt())});
+        }
+        return rows;
+    }
+
+    private record Key(Long itemId, LocalDateTime bucket) {
+    }
+
+    record Rollup(Long itemId, LocalDateTime bucket, long min, long max, long last, LocalDateTime lastAt) {
+
+        Rollup merge(Rollup other) {
+            boolean newer = !other.lastAt.isBefore(lastAt);
+            return new Rollup(itemId, bucket, Math.min(min, other.min), Math.max(max, other.max),
+                    newer ? other.last : last, newer ? other.lastAt : lastAt);
+        }
+    }
+}
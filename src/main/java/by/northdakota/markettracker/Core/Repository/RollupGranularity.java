@@ -0,0 +1,25 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOURLY("price_history_hourly", ChronoUnit.HOURS),
+    DAILY("price_history_daily", ChronoUnit.DAYS);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String table, ChronoUnit unit) {
+        this.table = table;
+        this.unit = unit;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public LocalDateTime bucket(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+}
@@ -1,10 +1,16 @@
 package by.northdakota.markettracker.Core.Repository;
 
+import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
 import by.northdakota.markettracker.Core.Entity.Marketplace;
 import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.yaml.snakeyaml.error.Mark;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,10 +18,22 @@ public interface TrackedItemRepository extends JpaRepository<TrackedItem, Long>
 
     void deleteByArticleAndChatIdAndMarketplace(String article, Long chatId,Marketplace marketplace);
 
-    Optional<List<TrackedItem>> findAllByMarketplace(Marketplace marketplace);
+    @Query("select distinct i.article from TrackedItem i " +
+            "where i.marketplace = :marketplace and i.article > :after order by i.article")
+    List<String> findArticlesAfter(Marketplace marketplace, String after, Limit limit);
 
-    Optional<List<TrackedItem>> findAllByChatIdAndMarketplace(Long chatId, Marketplace marketplace);
+    List<TrackedItem> findAllByMarketplaceAndArticleIn(Marketplace marketplace, Collection<String> articles);
 
     boolean existsByArticleAndChatIdAndMarketplace(String article, Long chatId, Marketplace marketplace);
 
+    boolean existsByArticleAndMarketplace(String article, Marketplace marketplace);
+
+    Optional<TrackedItem> findByChatIdAndArticleAndMarketplace(Long chatId, String article, Marketplace marketplace);
+
+    // сразу DTO без загрузки сущностей; сначала WB, потом Ozon, внутри — в порядке добавления
+    @Query("select new by.northdakota.markettracker.Core.Dto.TrackedItemDto(" +
+            "i.article, i.title, i.currentPrice, i.basicPrice, i.salePrice, i.marketplace) " +
+            "from TrackedItem i where i.chatId = :chatId order by i.marketplace desc, i.id")
+    Slice<TrackedItemDto> findListByChatId(Long chatId, Pageable pageable);
+
 }
@@ -1,25 +1,42 @@
 package by.northdakota.markettracker.Core.Service;
 
+import by.northdakota.markettracker.Core.Catalog.ProductMetadata;
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
 import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
 import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
 import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
 import by.northdakota.markettracker.Core.Entity.PriceHistory;
 import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Entity.TrackingChangedEvent;
 import by.northdakota.markettracker.Core.Parser.Ozon.OzonParser;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonProductData;
 import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
 import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceChange;
+import by.northdakota.markettracker.Core.Sweep.PriceState;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateBuffer;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import by.northdakota.markettracker.Core.Sweep.SweepOutcome;
+import by.northdakota.markettracker.Core.Sweep.SweepRun;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
 import lombok.RequiredArgsConstructor;
-import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -32,61 +49,75 @@ public class OzonTrackerService implements TrackerService {
     private final TrackedItemRepository trackedItemRepository;
     private final ApplicationEventPublisher eventPublisher;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final SweepEngine sweepEngine;
+    private final PriceUpdateWriter priceUpdateWriter;
+    private final PriceStateTable priceStateTable;
+    private final PollScheduler pollScheduler;
+    private final ProductMetadataCache productMetadataCache;
 
     @Override
     @Transactional
-    public Optional<TrackedItemDto> startTracking(String article, Long chatId){
+    public Optional<TrackedItemDto> startTracking(String article, Long chatId) throws IOException {
 
         if(trackedItemRepository.existsByArticleAndChatIdAndMarketplace(article, chatId, Marketplace.OZON)) {
             eventPublisher.publishEvent(new Notification(chatId,"Товар уже отслеживается!"));
             return Optional.empty();
         }
 
-        WebDriver driver = ozonParser.getDataDriver(article);
-
-        List<BigDecimal> priceList =  ozonParser.getPriceList(driver);
-        String productName = ozonParser.getProductName(driver);
-        ozonParser.closeDriver();
+        Optional<ProductMetadata> product = productMetadataCache.get(Marketplace.OZON, article, clock -> {
+            OzonProductData productData = ozonParser.getProductData(article);
+            if(productData.name() == null || productData.name().isEmpty()) {
+                return null;
+            }
+            List<Money> prices = productData.priceList();
+            if(prices.size() < 3) {
+                loggerOzon.warn("У товара {} найдено цен: {}, ожидалось три", article, prices.size());
+                return null;
+            }
+            return new ProductMetadata(productData.name(), prices.get(2), prices.get(1), prices.get(0), clock.instant());
+        });
 
-        if(productName == null || productName.isEmpty()) {
+        if(product.isEmpty()) {
             eventPublisher.publishEvent(new Notification(chatId,"Товар с таким артикулом не найден!"));
             return Optional.empty();
         }
+        Money salePrice = product.get().salePrice();
+        Money currentPrice = product.get().currentPrice();
+        Money basicPrice = product.get().basicPrice();
+        String productName = product.get().title();
 
         TrackedItem item = TrackedItem.builder()
-                .salePrice(priceList.get(0))
-                .currentPrice(priceList.get(1))
-                .basicPrice(priceList.get(2))
+                .salePrice(salePrice)
+                .currentPrice(currentPrice)
+                .basicPrice(basicPrice)
                 .marketplace(Marketplace.OZON)
-                .priceHistory(new ArrayList<>())
                 .chatId(chatId)
                 .article(article)
                 .title(productName)
                 .build();
 
-        PriceHistory history = new PriceHistory();
-        history.setPrice(priceList.get(1));
-        history.setItem(item);
-        history.setTimestamp(LocalDateTime.now());
-        List<PriceHistory> priceHistory =  item.getPriceHistory();
-        priceHistory.add(history);
-        item.setPriceHistory(priceHistory);
         item = trackedItemRepository.save(item);
 
-        priceHistoryRepository.save(history);
+        PriceHistory history = new PriceHistory(null, item, currentPrice, LocalDateTime.now());
+        // агрегаты пишутся через JDBC мимо контекста Hibernate: товар и история должны быть уже в базе
+        priceHistoryRepository.saveAndFlush(history);
+        priceHistoryRepository.recordRollups(List.of(history));
+        priceStateTable.putIfAbsent(Marketplace.OZON, article, PriceState.of(basicPrice, currentPrice, salePrice));
+        pollScheduler.track(Marketplace.OZON, article);
 
         TrackedItemDto dto = new TrackedItemDto(
                 article,
                 productName,
-                priceList.get(1),
-                priceList.get(2),
-                priceList.get(0),
+                currentPrice,
+                basicPrice,
+                salePrice,
                 Marketplace.OZON
 
         );
 
         loggerOzon.info("Tracked Item: {}", item);
         loggerOzon.info("Price History : {}", history);
+        eventPublisher.publishEvent(new TrackingChangedEvent(chatId));
         return Optional.of(dto);
     }
 
@@ -94,83 +125,121 @@ public class OzonTrackerService implements TrackerService {
     @Transactional
     public void stopTracking(String article, Long chatId) throws IOException {
         trackedItemRepository.deleteByArticleAndChatIdAndMarketplace(article,chatId,Marketplace.OZON);
+        if(!trackedItemRepository.existsByArticleAndMarketplace(article,Marketplace.OZON)){
+            priceStateTable.remove(Marketplace.OZON, article);
+            pollScheduler.untrack(Marketplace.OZON, article);
+        }
         loggerOzon.info("Товар с артикулом {} и chatId {} больше не отслеживается", article,chatId);
+        eventPublisher.publishEvent(new TrackingChangedEvent(chatId));
     }
 
-    @Override
-    public List<TrackedItemDto> getUserTrackedItem(Long chatId) {
-        Optional<List<TrackedItem>> trackedItemsOpt = trackedItemRepository
-                .findAllByChatIdAndMarketplace(chatId,Marketplace.OZON);
-        if(trackedItemsOpt.isEmpty()){
-            eventPublisher.publishEvent(new Notification(chatId,"Товары на OZON не отслеживаются!"));
-            return Collections.emptyList();
-        }
-        List<TrackedItem> trackedItems = trackedItemsOpt.get();
-        List<TrackedItemDto> trackedItemDtos = new ArrayList<>();
-        for(TrackedItem item : trackedItems) {
-            TrackedItemDto dto = new TrackedItemDto();
-            dto.setArticle(item.getArticle());
-            dto.setTitle(item.getTitle());
-            dto.setBasicPrice(item.getBasicPrice());
-            dto.setCurrentPrice(item.getCurrentPrice());
-            dto.setMarketplace(item.getMarketplace());
-            dto.setSalePrice(item.getSalePrice());
-            trackedItemDtos.add(dto);
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmPriceTable() {
+        int pageSize = sweepEngine.getPageSize();
+        String after = "";
+        while(true){
+            List<String> articles = trackedItemRepository.findArticlesAfter(Marketplace.OZON, after, Limit.of(pageSize));
+            if(articles.isEmpty()){
+                break;
+            }
+            for(TrackedItem item : trackedItemRepository.findAllByMarketplaceAndArticleIn(Marketplace.OZON, articles)){
+                priceStateTable.putIfAbsent(Marketplace.OZON, item.getArticle(),
+                        PriceState.of(item.getBasicPrice(), item.getCurrentPrice(), item.getSalePrice()));
+                pollScheduler.track(Marketplace.OZON, item.getArticle());
+            }
+            if(articles.size() < pageSize){
+                break;
+            }
+            after = articles.get(articles.size() - 1);
         }
-        return trackedItemDtos;
+        loggerOzon.info("Загружены цены OZON: {} артикулов", priceStateTable.size(Marketplace.OZON));
+        pollScheduler.restore(Marketplace.OZON);
     }
 
     @Override
-    @Scheduled(fixedDelayString = "PT30M",initialDelayString = "PT40M")
+    @Scheduled(fixedDelayString = "${poll.tick:PT5M}",initialDelayString = "${poll.initial-delay:PT1M}")
     @Async
     public void checkPrice() throws IOException {
-        Optional<List<TrackedItem>> itemListOpt = trackedItemRepository.findAllByMarketplace(Marketplace.OZON);
-
-        if(itemListOpt.isEmpty()){
-            loggerOzon.info("Товары на OZON не отслеживаются!");
-            loggerOzon.info("Проверка цен завершена");
+        List<String> articles = pollScheduler.claimDue(Marketplace.OZON);
+        if(articles.isEmpty()){
             return;
         }
+        PriceUpdateBuffer updates = new PriceUpdateBuffer(priceUpdateWriter);
 
-        List<TrackedItem> itemList = itemListOpt.get();
-
-        for(TrackedItem item : itemList){
-            WebDriver driver = ozonParser.getDataDriver(item.getArticle());
-            List<BigDecimal> priceList =  ozonParser.getPriceList(driver);
-            String productName = ozonParser.getProductName(driver);
-            ozonParser.closeDriver();
-            BigDecimal newPrice = priceList.get(1);
-            BigDecimal salePrice = priceList.get(0);
-            if(item.getCurrentPrice().compareTo(newPrice) != 0){
-                BigDecimal oldPrice = item.getCurrentPrice();
-                item.setSalePrice(salePrice);
-                item.setCurrentPrice(newPrice);
-                trackedItemRepository.save(item);
-
-                loggerOzon.info("Tracked Item info updated: {}", item);
-
-                PriceHistory history = new PriceHistory();
-                history.setItem(item);
-                history.setPrice(newPrice);
-                history.setTimestamp(LocalDateTime.now());
-                priceHistoryRepository.save(history);
-
-                loggerOzon.info("Price History saved: {}", history);
-
-                String message = String.format("У товара %s (арт. %s) с маркетплейса %s\n💰 Изменилась цена: %s → %s",
-                        item.getTitle(),
-                        Marketplace.OZON,
-                        item.getArticle(),
-                        oldPrice,
-                        newPrice);
-
-                eventPublisher.publishEvent(new Notification(item.getChatId(),message));
-                loggerOzon.info("Обновлена цена и отправлено уведомление : /{}/ в чат пользователя {}",
-                        message,item.getChatId());
-
+        try(SweepRun run = sweepEngine.start(Marketplace.OZON)){
+            for(String article : articles){
+                run.submit(List.of(article), batch ->
+                        pollScheduler.completed(Marketplace.OZON, Map.of(article, checkArticle(article, updates))));
             }
+            SweepSummary summary = run.await();
+            updates.flush();
+            pollScheduler.checkpoint(Marketplace.OZON);
+            loggerOzon.info("Проверка цен завершена: {}", summary);
+            eventPublisher.publishEvent(summary);
+        }
+    }
 
+    // таблица цен и уведомления обновляются после записи, чтобы упавшая запись повторилась на следующей проверке
+    private SweepOutcome checkArticle(String article, PriceUpdateBuffer updates) {
+        OzonProductData productData = ozonParser.getProductData(article);
+        List<Money> priceList = productData.priceList();
+        // страница не загрузилась — повторить скоро; загрузилась без полного набора цен — реже
+        if(productData.name() == null){
+            return SweepOutcome.FAILED;
+        }
+        if(priceList.size() < 3){
+            loggerOzon.warn("У товара {} найдено цен: {}, ожидалось три", article, priceList.size());
+            return SweepOutcome.NOT_FOUND;
+        }
+        Money newPrice = priceList.get(1);
+        Money salePrice = priceList.get(0);
+        productMetadataCache.refreshPrices(Marketplace.OZON, article, priceList.get(2), newPrice, salePrice);
+        PriceState state = PriceState.of(priceList.get(2), newPrice, salePrice);
+        if(!priceStateTable.differs(Marketplace.OZON, article, state)){
+            priceStateTable.update(Marketplace.OZON, article, state);
+            return SweepOutcome.UNCHANGED;
+        }
+        List<TrackedItem> items = trackedItemRepository.findAllByMarketplaceAndArticleIn(Marketplace.OZON, List.of(article));
+        if(items.isEmpty()){
+            priceStateTable.remove(Marketplace.OZON, article);
+            pollScheduler.untrack(Marketplace.OZON, article);
+            return SweepOutcome.UNCHANGED;
+        }
+        List<PriceChange> changes = new ArrayList<>();
+        List<PriceChangeEvent> events = new ArrayList<>();
+        for(TrackedItem item : items){
+            updatePrice(item, priceList.get(2), newPrice, salePrice, changes, events);
+        }
+        if(changes.isEmpty()){
+            priceStateTable.update(Marketplace.OZON, article, state);
+            return SweepOutcome.UNCHANGED;
+        }
+        updates.add(changes, () -> {
+            priceStateTable.update(Marketplace.OZON, article, state);
+            events.forEach(eventPublisher::publishEvent);
+        });
+        return SweepOutcome.CHANGED;
+    }
+
+    // цена по карте меняется и при неизменной обычной, о ней тоже сообщается; базовая только записывается
+    private void updatePrice(TrackedItem item, Money basicPrice, Money newPrice, Money salePrice,
+                             List<PriceChange> changes, List<PriceChangeEvent> events) {
+        Money oldPrice = item.getCurrentPrice();
+        Money oldSalePrice = item.getSalePrice();
+        boolean priceChanged = !oldPrice.equals(newPrice);
+        boolean saleChanged = !salePrice.equals(oldSalePrice);
+        if(!priceChanged && !saleChanged && basicPrice.equals(item.getBasicPrice())){
+            return;
+        }
+        item.setBasicPrice(basicPrice);
+        item.setSalePrice(salePrice);
+        item.setCurrentPrice(newPrice);
+        changes.add(new PriceChange(item.getId(), basicPrice, newPrice, salePrice, LocalDateTime.now()));
+
+        loggerOzon.info("Tracked Item info updated: {}", item);
+        if(priceChanged || saleChanged){
+            events.add(new PriceChangeEvent(item.getChatId(), Marketplace.OZON, item.getArticle(),
+                    item.getTitle(), oldPrice, newPrice, oldSalePrice, salePrice));
         }
-        loggerOzon.info("Проверка цен завершена");
     }
 }
@@ -1,29 +1,45 @@
 package by.northdakota.markettracker.Core.Service;
 
+import by.northdakota.markettracker.Core.Catalog.ProductMetadata;
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
 import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
 import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
 import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
 import by.northdakota.markettracker.Core.Entity.PriceHistory;
 import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Entity.TrackingChangedEvent;
 import by.northdakota.markettracker.Core.Parser.WB.WbDataProvider;
-import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
 import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
 import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceChange;
+import by.northdakota.markettracker.Core.Sweep.PriceState;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateBuffer;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import by.northdakota.markettracker.Core.Sweep.SweepOutcome;
+import by.northdakota.markettracker.Core.Sweep.SweepRun;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,10 +48,14 @@ public class WbTrackerService implements TrackerService{
     private static final Logger logger = LoggerFactory.getLogger(WbTrackerService.class);
 
     private final WbDataProvider wbDataProvider;
-    private final WbParser wbParser;
     private final TrackedItemRepository trackedItemRepository;
     private final PriceHistoryRepository priceHistoryRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final SweepEngine sweepEngine;
+    private final PriceUpdateWriter priceUpdateWriter;
+    private final PriceStateTable priceStateTable;
+    private final PollScheduler pollScheduler;
+    private final ProductMetadataCache productMetadataCache;
 
     @Transactional
     public Optional<TrackedItemDto> startTracking(String article, Long chatId) throws IOException {
@@ -45,17 +65,19 @@ public class WbTrackerService implements TrackerService{
             return Optional.empty();
         }
 
-        JSONObject object = wbDataProvider.getProductData(article);
-        JSONArray products = object.getJSONArray("products");
-        if (products == null || products.toList().isEmpty()) {
+        Optional<ProductMetadata> product = productMetadataCache.get(Marketplace.WB, article, clock -> {
+            WbProductCard card = wbDataProvider.getProductsData(List.of(article)).get(article);
+            return card == null ? null
+                    : new ProductMetadata(card.name(), card.basicPrice(), card.productPrice(), null, clock.instant());
+        });
+        if (product.isEmpty()) {
             eventPublisher.publishEvent(new Notification(chatId, "Товар с таким артикулом не найден!"));
             return Optional.empty();
         }
-        Map<String, Object> priceList = wbParser.getPriceList(object);
-        BigDecimal currentPrice = new BigDecimal(priceList.get("product").toString());
-        BigDecimal basicPrice = new BigDecimal(priceList.get("basic").toString());
+        Money currentPrice = product.get().currentPrice();
+        Money basicPrice = product.get().basicPrice();
 
-        String productName = wbParser.getProductName(object);
+        String productName = product.get().title();
 
         TrackedItem trackedItem = TrackedItem.builder()
                 .currentPrice(currentPrice)
@@ -65,19 +87,16 @@ public class WbTrackerService implements TrackerService{
                 .marketplace(Marketplace.WB)
                 .article(article)
                 .chatId(chatId)
-                .priceHistory(new ArrayList<>())
                 .build();
-
-        PriceHistory history = new PriceHistory();
-        history.setPrice(currentPrice);
-        history.setItem(trackedItem);
-        history.setTimestamp(LocalDateTime.now());
-        List<PriceHistory> priceHistory =  trackedItem.getPriceHistory();
-        priceHistory.add(history);
-        trackedItem.setPriceHistory(priceHistory);
         trackedItem = trackedItemRepository.save(trackedItem);
 
-        priceHistoryRepository.save(history);
+        PriceHistory history = new PriceHistory(null, trackedItem, currentPrice, LocalDateTime.now());
+        // агрегаты пишутся через JDBC мимо контекста Hibernate: товар и история должны быть уже в базе
+        priceHistoryRepository.saveAndFlush(history);
+        priceHistoryRepository.recordRollups(List.of(history));
+        priceStateTable.putIfAbsent(Marketplace.WB, article,
+                PriceState.of(basicPrice, currentPrice, null));
+        pollScheduler.track(Marketplace.WB, article);
 
 
         TrackedItemDto dto = new TrackedItemDto(
@@ -91,86 +110,140 @@ public class WbTrackerService implements TrackerService{
         );
         logger.info("Tracked Item: {}", trackedItem);
         logger.info("Price History : {}", history);
+        eventPublisher.publishEvent(new TrackingChangedEvent(chatId));
         return Optional.of(dto);
     }
 
     @Transactional
     public void stopTracking(String article,Long chatId) {
         trackedItemRepository.deleteByArticleAndChatIdAndMarketplace(article,chatId,Marketplace.WB);
+        if(!trackedItemRepository.existsByArticleAndMarketplace(article,Marketplace.WB)){
+            priceStateTable.remove(Marketplace.WB, article);
+            pollScheduler.untrack(Marketplace.WB, article);
+        }
         logger.info("Товар с артикулом {} и chatId {} больше не отслеживается", article,chatId);
+        eventPublisher.publishEvent(new TrackingChangedEvent(chatId));
     }
 
-    public List<TrackedItemDto> getUserTrackedItem(Long chatId) {
-        Optional<List<TrackedItem>> trackedItemsOpt = trackedItemRepository
-                .findAllByChatIdAndMarketplace(chatId,Marketplace.WB);
-        if(trackedItemsOpt.isEmpty()){
-            eventPublisher.publishEvent(new Notification(chatId,"Товары на WB не отслеживаются!"));
-            return Collections.emptyList();
-        }
-        List<TrackedItem> trackedItems = trackedItemsOpt.get();
-        List<TrackedItemDto> trackedItemsDto = new ArrayList<>();
-        for(TrackedItem item : trackedItems) {
-            TrackedItemDto dto = new TrackedItemDto();
-            dto.setArticle(item.getArticle());
-            dto.setTitle(item.getTitle());
-            dto.setBasicPrice(item.getBasicPrice());
-            dto.setCurrentPrice(item.getCurrentPrice());
-            dto.setMarketplace(item.getMarketplace());
-            dto.setSalePrice(item.getSalePrice());
-            trackedItemsDto.add(dto);
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmPriceTable() {
+        int pageSize = sweepEngine.getPageSize();
+        String after = "";
+        while(true){
+            List<String> articles = trackedItemRepository.findArticlesAfter(Marketplace.WB, after, Limit.of(pageSize));
+            if(articles.isEmpty()){
+                break;
+            }
+            for(TrackedItem item : trackedItemRepository.findAllByMarketplaceAndArticleIn(Marketplace.WB, articles)){
+                priceStateTable.putIfAbsent(Marketplace.WB, item.getArticle(),
+                        PriceState.of(item.getBasicPrice(), item.getCurrentPrice(), item.getSalePrice()));
+                pollScheduler.track(Marketplace.WB, item.getArticle());
+            }
+            if(articles.size() < pageSize){
+                break;
+            }
+            after = articles.get(articles.size() - 1);
         }
-        return trackedItemsDto;
+        logger.info("Загружены цены WB: {} артикулов", priceStateTable.size(Marketplace.WB));
+        pollScheduler.restore(Marketplace.WB);
     }
 
-    @Scheduled(fixedDelayString = "PT30M",initialDelayString = "PT30M")
+    // проверяются только артикулы, чья очередь подошла; частоту для каждого подбирает PollScheduler
+    @Scheduled(fixedDelayString = "${poll.tick:PT5M}",initialDelayString = "${poll.initial-delay:PT1M}")
     @Async
     public void checkPrice() throws IOException {
-        Optional<List<TrackedItem>> itemListOpt = trackedItemRepository.findAllByMarketplace(Marketplace.WB);
-
-        if(itemListOpt.isEmpty()){
-            logger.info("Товары на WB не отслеживаются!");
-            logger.info("Проверка цен завершена");
+        List<String> articles = pollScheduler.claimDue(Marketplace.WB);
+        if(articles.isEmpty()){
             return;
         }
+        int batchSize = wbDataProvider.getBatchSize();
+        PriceUpdateBuffer updates = new PriceUpdateBuffer(priceUpdateWriter);
 
-        List<TrackedItem> itemList = itemListOpt.get();
-
-        for(TrackedItem item : itemList){
-            JSONObject data = wbDataProvider.getProductData(item.getArticle());
-            Map<String,Object> priceList = wbParser.getPriceList(data);
-            BigDecimal newPrice = new BigDecimal(priceList.get("product").toString());
-            if(item.getCurrentPrice().compareTo(newPrice) != 0){
-                BigDecimal oldPrice = item.getCurrentPrice();
-                item.setCurrentPrice(newPrice);
-                trackedItemRepository.save(item);
-
-                logger.info("Tracked Item info updated: {}", item);
-
-                PriceHistory history = new PriceHistory();
-                history.setItem(item);
-                history.setPrice(newPrice);
-                history.setTimestamp(LocalDateTime.now());
-                priceHistoryRepository.save(history);
-
-                logger.info("Price History saved: {}", history);
-
-                String message = String.format("У товара %s (арт. %s) с маркетплейса %s\n💰 Изменилась цена: %s → %s",
-                        item.getTitle(),
-                        Marketplace.WB,
-                        item.getArticle(),
-                        oldPrice.divide(BigDecimal.valueOf(100)).doubleValue() ,
-                        newPrice.divide(BigDecimal.valueOf(100)).doubleValue());
-
-                eventPublisher.publishEvent(new Notification(item.getChatId(),message));
-                logger.info("Обновлена цена и отправлено уведомление : /{}/ в чат пользователя {}",
-                        message,item.getChatId());
-
+        try(SweepRun run = sweepEngine.start(Marketplace.WB)){
+            for(int from = 0; from < articles.size(); from += batchSize){
+                List<String> batch = articles.subList(from, Math.min(from + batchSize, articles.size()));
+                run.submit(batch, b -> pollScheduler.completed(Marketplace.WB, checkBatch(b, updates)));
             }
-
+            SweepSummary summary = run.await();
+            updates.flush();
+            pollScheduler.checkpoint(Marketplace.WB);
+            logger.info("Проверка цен завершена: {}", summary);
+            eventPublisher.publishEvent(summary);
         }
-        logger.info("Проверка цен завершена");
     }
 
+    // в базу идут только артикулы, цена которых разошлась с таблицей; сама таблица и уведомления
+    // обновляются после записи, чтобы упавшая запись повторилась на следующей проверке
+    private Map<String, SweepOutcome> checkBatch(List<String> articles, PriceUpdateBuffer updates) throws IOException {
+        Map<String, WbProductCard> cards = wbDataProvider.getProductsData(articles);
+        Map<String, SweepOutcome> outcomes = new HashMap<>();
+        Map<String, PriceState> changed = new LinkedHashMap<>();
+        for(String article : articles){
+            WbProductCard card = cards.get(article);
+            if(card == null){
+                logger.warn("Товар с артикулом {} не найден на WB", article);
+                outcomes.put(article, SweepOutcome.NOT_FOUND);
+                continue;
+            }
+            productMetadataCache.refreshPrices(Marketplace.WB, article, card.basicPrice(), card.productPrice(), null);
+            PriceState state = PriceState.of(card.basicPrice(), card.productPrice(), null);
+            if(priceStateTable.differs(Marketplace.WB, article, state)){
+                changed.put(article, state);
+            } else {
+                priceStateTable.update(Marketplace.WB, article, state);
+                outcomes.put(article, SweepOutcome.UNCHANGED);
+            }
+        }
+        if(changed.isEmpty()){
+            return outcomes;
+        }
+        Map<String, List<TrackedItem>> itemsByArticle = trackedItemRepository
+                .findAllByMarketplaceAndArticleIn(Marketplace.WB, new ArrayList<>(changed.keySet())).stream()
+                .collect(Collectors.groupingBy(TrackedItem::getArticle));
+        changed.forEach((article, state) -> {
+            List<TrackedItem> items = itemsByArticle.get(article);
+            if(items == null){
+                priceStateTable.remove(Marketplace.WB, article);
+                pollScheduler.untrack(Marketplace.WB, article);
+                outcomes.put(article, SweepOutcome.UNCHANGED);
+                return;
+            }
+            WbProductCard card = cards.get(article);
+            List<PriceChange> changes = new ArrayList<>();
+            List<PriceChangeEvent> events = new ArrayList<>();
+            for(TrackedItem item : items){
+                updatePrice(item, card.basicPrice(), card.productPrice(), changes, events);
+            }
+            if(changes.isEmpty()){
+                priceStateTable.update(Marketplace.WB, article, state);
+                outcomes.put(article, SweepOutcome.UNCHANGED);
+                return;
+            }
+            updates.add(changes, () -> {
+                priceStateTable.update(Marketplace.WB, article, state);
+                events.forEach(eventPublisher::publishEvent);
+            });
+            outcomes.put(article, SweepOutcome.CHANGED);
+        });
+        return outcomes;
+    }
 
+    // базовая цена записывается, но пользователю сообщается только об изменении текущей
+    private void updatePrice(TrackedItem item, Money basicPrice, Money newPrice,
+                             List<PriceChange> changes, List<PriceChangeEvent> events) {
+        if(item.getCurrentPrice().equals(newPrice) && basicPrice.equals(item.getBasicPrice())){
+            return;
+        }
+        Money oldPrice = item.getCurrentPrice();
+        item.setBasicPrice(basicPrice);
+        item.setCurrentPrice(newPrice);
+        changes.add(new PriceChange(item.getId(), basicPrice, newPrice, item.getSalePrice(), LocalDateTime.now()));
+
+        logger.info("Tracked Item info updated: {}", item);
+        if(!oldPrice.equals(newPrice)){
+            events.add(new PriceChangeEvent(item.getChatId(), Marketplace.WB, item.getArticle(),
+                    item.getTitle(), oldPrice, newPrice));
+        }
+    }
 
 }
@@ -0,0 +1,9 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import java.util.List;
+import java.util.Map;
+
+@FunctionalInterface
+public interface BatchCheck {
+    Map<String, SweepOutcome> check(List<String> articles) throws Exception;
+}
@@ -0,0 +1,7 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record PollCheckpoint(String article, Instant nextCheckAt, Duration interval) {
+}
@@ -0,0 +1,273 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Repository.PollScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// у каждого артикула своё время следующей проверки: интервал сокращается вдвое, когда цена меняется,
+// и растёт в полтора раза, когда нет, так что запросы к маркетплейсу уходят туда, где цены живые
+@Component
+public class PollScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollScheduler.class);
+
+    private static final double SHRINK = 0.5;
+    private static final double GROW = 1.5;
+
+    private final Map<Marketplace, Schedule> schedules = new EnumMap<>(Marketplace.class);
+    private final PollScheduleRepository repository;
+    private final Clock clock;
+    private final long minInterval;
+    private final long maxInterval;
+    private final long initialInterval;
+    private final double jitter;
+    private final long lease;
+    private final int checkpointEvery;
+
+    @Autowired
+    public PollScheduler(PollScheduleRepository repository,
+                         @Value("${poll.min-interval:PT10M}") Duration minInterval,
+                         @Value("${poll.max-interval:PT6H}") Duration maxInterval,
+                         @Value("${poll.initial-interval:PT30M}") Duration initialInterval,
+                         @Value("${poll.jitter:0.1}") double jitter,
+                         @Value("${sweep.deadline:PT25M}") Duration lease,
+                         @Value("${poll.checkpoint-every:500}") int checkpointEvery) {
+        this(repository, Clock.systemUTC(), minInterval, maxInterval, initialInterval, jitter, lease, checkpointEvery);
+    }
+
+    public PollScheduler(PollScheduleRepository repository, Clock clock, Duration minInterval, Duration maxInterval,
+                         Duration initialInterval, double jitter, Duration lease, int checkpointEvery) {
+        this.repository = repository;
+        this.clock = clock;
+        this.minInterval = minInterval.toMillis();
+        this.maxInterval = Math.max(maxInterval.toMillis(), this.minInterval);
+        this.initialInterval = initialInterval.toMillis();
+        this.jitter = jitter;
+        this.lease = lease.toMillis();
+        this.checkpointEvery = Math.max(checkpointEvery, 1);
+        for (Marketplace marketplace : Marketplace.values()) {
+            schedules.put(marketplace, new Schedule());
+        }
+    }
+
+    // первая проверка случайно разносится по начальному интервалу, чтобы после старта не проверять всё разом
+    public void track(Marketplace marketplace, String article) {
+        long firstCheck = initialInterval > 0 ? ThreadLocalRandom.current().nextLong(initialInterval) : 0;
+        schedules.get(marketplace).track(article, clamp(initialInterval), clock.millis() + firstCheck);
+    }
+
+    public void untrack(Marketplace marketplace, String article) {
+        schedules.get(marketplace).untrack(article);
+        repository.deleteAll(marketplace, List.of(article));
+    }
+
+    // вызывается после загрузки отслеживаемых артикулов: сохранённое время проверки заменяет случайное,
+    // так что прерванная проверка продолжается сразу, а уже проверенные артикулы ждут своей очереди
+    public void restore(Marketplace marketplace) {
+        Map<String, PollCheckpoint> saved = repository.findAll(marketplace);
+        List<String> stale = schedules.get(marketplace).restore(saved);
+        repository.deleteAll(marketplace, stale);
+        logger.info("Восстановлено расписание {}: {} артикулов, удалено устаревших {}",
+                marketplace, saved.size() - stale.size(), stale.size());
+    }
+
+    // выданные артикулы до отчёта о проверке считаются арендованными: если отчёт не придёт
+    // (ошибка, таймаут проверки), артикул снова станет к проверке, когда аренда истечёт.
+    // аренда не сохраняется, поэтому после падения такие артикулы проверяются сразу
+    public List<String> claimDue(Marketplace marketplace) {
+        long now = clock.millis();
+        return schedules.get(marketplace).claimDue(now, now + lease);
+    }
+
+    public Map<String, SweepOutcome> completed(Marketplace marketplace, Map<String, SweepOutcome> outcomes) {
+        Schedule schedule = schedules.get(marketplace);
+        schedule.completed(outcomes, clock.millis());
+        if (schedule.pending() >= checkpointEvery) {
+            checkpoint(marketplace);
+        }
+        return outcomes;
+    }
+
+    // ошибка записи не должна ронять проверку: точки возвращаются в очередь и уйдут со следующим сохранением
+    public void checkpoint(Marketplace marketplace) {
+        Schedule schedule = schedules.get(marketplace);
+        List<PollCheckpoint> checkpoints = schedule.drainPending();
+        try {
+            repository.saveAll(marketplace, checkpoints);
+        } catch (DataAccessException e) {
+            schedule.requeue(checkpoints);
+            logger.warn("Не удалось сохранить расписание {}: {}", marketplace, e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void checkpointAll() {
+        for (Marketplace marketplace : Marketplace.values()) {
+            checkpoint(marketplace);
+        }
+    }
+
+    public Optional<Duration> interval(Marketplace marketplace, String article) {
+        return schedules.get(marketplace).interval(article).map(Duration::ofMillis);
+    }
+
+    public int size(Marketplace marketplace) {
+        return schedules.get(marketplace).size();
+    }
+
+    private long nextInterval(long interval, SweepOutcome outcome) {
+        return switch (outcome) {
+            case CHANGED -> clamp((long) (interval * SHRINK));
+            case UNCHANGED, NOT_FOUND -> clamp((long) (interval * GROW));
+            case FAILED, TIMED_OUT -> interval;
+        };
+    }
+
+    private long delay(long interval, SweepOutcome outcome) {
+        if (outcome == SweepOutcome.FAILED) {
+            return minInterval;
+        }
+        if (outcome == SweepOutcome.TIMED_OUT) {
+            return 0;
+        }
+        return jitter > 0
+                ? (long) (interval * (1 + jitter * ThreadLocalRandom.current().nextDouble(-1, 1)))
+                : interval;
+    }
+
+    private long clamp(long interval) {
+        return Math.min(maxInterval, Math.max(minInterval, interval));
+    }
+
+    // очередь с ленивым удалением: устаревшие записи кучи отбрасываются, когда доходят до вершины
+    private final class Schedule {
+
+        private final PriorityQueue<Slot> queue = new PriorityQueue<>();
+        private final Map<String, Entry> entries = new HashMap<>();
+        private Map<String, PollCheckpoint> pending = new HashMap<>();
+
+        synchronized void track(String article, long interval, long dueAt) {
+            if (!entries.containsKey(article)) {
+                Entry entry = new Entry(interval);
+                entries.put(article, entry);
+                schedule(article, entry, dueAt);
+            }
+        }
+
+        synchronized void untrack(String article) {
+            entries.remove(article);
+            pending.remove(article);
+        }
+
+        synchronized List<String> restore(Map<String, PollCheckpoint> saved) {
+            List<String> stale = new ArrayList<>();
+            for (PollCheckpoint checkpoint : saved.values()) {
+                Entry entry = entries.get(checkpoint.article());
+                if (entry == null) {
+                    stale.add(checkpoint.article());
+                    continue;
+                }
+                entry.interval = clamp(checkpoint.interval().toMillis());
+                schedule(checkpoint.article(), entry, checkpoint.nextCheckAt().toEpochMilli());
+            }
+            return stale;
+        }
+
+        synchronized List<String> claimDue(long now, long leaseUntil) {
+            List<String> due = new ArrayList<>();
+            while (!queue.isEmpty() && queue.peek().dueAt() <= now) {
+                Slot slot = queue.poll();
+                Entry entry = entries.get(slot.article());
+                if (entry == null || entry.version != slot.version()) {
+                    continue;
+                }
+                due.add(slot.article());
+            }
+            for (String article : due) {
+                schedule(article, entries.get(article), leaseUntil);
+            }
+            return due;
+        }
+
+        synchronized void completed(Map<String, SweepOutcome> outcomes, long now) {
+            for (Map.Entry<String, SweepOutcome> outcome : outcomes.entrySet()) {
+                Entry entry = entries.get(outcome.getKey());
+                if (entry == null) {
+                    continue;
+                }
+                entry.interval = nextInterval(entry.interval, outcome.getValue());
+                long dueAt = now + delay(entry.interval, outcome.getValue());
+                schedule(outcome.getKey(), entry, dueAt);
+                pending.put(outcome.getKey(), new PollCheckpoint(outcome.getKey(),
+                        Instant.ofEpochMilli(dueAt), Duration.ofMillis(entry.interval)));
+            }
+        }
+
+        synchronized int pending() {
+            return pending.size();
+        }
+
+        synchronized List<PollCheckpoint> drainPending() {
+            List<PollCheckpoint> drained = List.copyOf(pending.values());
+            pending = new HashMap<>();
+            return drained;
+        }
+
+        synchronized void requeue(List<PollCheckpoint> checkpoints) {
+            for (PollCheckpoint checkpoint : checkpoints) {
+                if (entries.containsKey(checkpoint.article())) {
+                    pending.putIfAbsent(checkpoint.article(), checkpoint);
+                }
+            }
+        }
+
+        synchronized Optional<Long> interval(String article) {
+            return Optional.ofNullable(entries.get(article)).map(entry -> entry.interval);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void schedule(String article, Entry entry, long dueAt) {
+            entry.version++;
+            queue.add(new Slot(article, dueAt, entry.version));
+        }
+    }
+
+    private static final class Entry {
+
+        private long interval;
+        private long version;
+
+        private Entry(long interval) {
+            this.interval = interval;
+        }
+    }
+
+    private record Slot(String article, long dueAt, long version) implements Comparable<Slot> {
+
+        @Override
+        public int compareTo(Slot other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+import java.time.LocalDateTime;
+
+public record PriceChange(Long itemId, Money basicPrice, Money currentPrice, Money salePrice, LocalDateTime timestamp) {
+}
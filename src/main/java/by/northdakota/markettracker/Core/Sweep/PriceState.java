@@ -0,0 +1,17 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+
+// последние увиденные цены товара в копейках; NO_PRICE, если маркетплейс такую цену не отдаёт
+public record PriceState(long basic, long current, long sale) {
+
+    public static final long NO_PRICE = -1;
+
+    public static PriceState of(Money basic, Money current, Money sale) {
+        return new PriceState(kopecks(basic), kopecks(current), kopecks(sale));
+    }
+
+    private static long kopecks(Money price) {
+        return price == null ? NO_PRICE : price.kopecks();
+    }
+}
@@ -0,0 +1,58 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class PriceStateTable {
+
+    private final Map<Marketplace, Map<String, PriceState>> states = new EnumMap<>(Marketplace.class);
+
+    public PriceStateTable() {
+        for (Marketplace marketplace : Marketplace.values()) {
+            states.put(marketplace, new ConcurrentHashMap<>());
+        }
+    }
+
+    public PriceState get(Marketplace marketplace, String article) {
+        return states.get(marketplace).get(article);
+    }
+
+    public void putIfAbsent(Marketplace marketplace, String article, PriceState state) {
+        states.get(marketplace).putIfAbsent(article, state);
+    }
+
+    public void remove(Marketplace marketplace, String article) {
+        states.get(marketplace).remove(article);
+    }
+
+    // только сравнивает: новая цена попадает в таблицу через update, когда изменение уже записано в базу.
+    // сравниваются все три цены: у Ozon цена по карте меняется и при неизменной обычной
+    public boolean differs(Marketplace marketplace, String article, PriceState state) {
+        PriceState current = states.get(marketplace).get(article);
+        return current != null && !current.equals(state);
+    }
+
+    // меняет только уже отслеживаемые артикулы, чтобы проверка не вернула в таблицу товар, снятый с отслеживания
+    public boolean update(Marketplace marketplace, String article, PriceState state) {
+        PriceState[] previous = new PriceState[1];
+        states.get(marketplace).computeIfPresent(article, (key, current) -> {
+            previous[0] = current;
+            return state;
+        });
+        return previous[0] != null && !previous[0].equals(state);
+    }
+
+    public List<String> articles(Marketplace marketplace) {
+        return states.get(marketplace).keySet().stream().sorted().toList();
+    }
+
+    public int size(Marketplace marketplace) {
+        return states.get(marketplace).size();
+    }
+}
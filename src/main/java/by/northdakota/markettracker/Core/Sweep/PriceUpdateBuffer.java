@@ -0,0 +1,73 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PriceUpdateBuffer {
+
+    private final PriceUpdateWriter writer;
+    private final int flushSize;
+    private Batch pending = new Batch();
+    private boolean sealed;
+
+    // writer должен быть бином из контекста, а не this изнутри него, иначе write пройдёт мимо транзакции
+    public PriceUpdateBuffer(PriceUpdateWriter writer) {
+        this.writer = writer;
+        this.flushSize = Math.max(writer.getFlushSize(), 1);
+    }
+
+    public void add(PriceChange change) {
+        add(List.of(change), null);
+    }
+
+    // изменения одного артикула уходят одной транзакцией, а onWritten выполняется только после её коммита:
+    // если запись упала, следующая проверка снова увидит расхождение с таблицей цен
+    public void add(List<PriceChange> changes, Runnable onWritten) {
+        Batch full = null;
+        synchronized (this) {
+            if (sealed) {
+                throw new IllegalStateException("Изменения цен уже записаны, проверка завершена");
+            }
+            pending.changes.addAll(changes);
+            if (onWritten != null) {
+                pending.onWritten.add(onWritten);
+            }
+            if (pending.changes.size() >= flushSize) {
+                full = drain();
+            }
+        }
+        if (full != null) {
+            write(full);
+        }
+    }
+
+    // итоговая запись: batch, не остановленный к концу проверки, получит отказ, и его изменения
+    // останутся в таблице цен расхождением до следующей проверки, а не потеряются молча
+    public void flush() {
+        Batch rest;
+        synchronized (this) {
+            sealed = true;
+            rest = drain();
+        }
+        write(rest);
+    }
+
+    private Batch drain() {
+        Batch drained = pending;
+        pending = new Batch();
+        return drained;
+    }
+
+    private void write(Batch batch) {
+        if (!batch.changes.isEmpty()) {
+            writer.write(batch.changes);
+        }
+        batch.onWritten.forEach(Runnable::run);
+    }
+
+    private record Batch(List<PriceChange> changes, List<Runnable> onWritten) {
+        Batch() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+    }
+}
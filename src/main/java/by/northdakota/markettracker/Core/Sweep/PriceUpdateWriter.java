@@ -0,0 +1,68 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class PriceUpdateWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceUpdateWriter.class);
+
+    private final TrackedItemRepository trackedItemRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final int flushSize;
+
+    public PriceUpdateWriter(TrackedItemRepository trackedItemRepository,
+                             PriceHistoryRepository priceHistoryRepository,
+                             @Value("${sweep.flush-size:500}") int flushSize) {
+        this.trackedItemRepository = trackedItemRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.flushSize = flushSize;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    // товары читаются одним запросом и меняются уже управляемыми, так что update'ы и insert'ы истории
+    // уходят при коммите JDBC batch'ами, без merge и select на каждую строку. история хранит только
+    // текущую цену, поэтому изменение одной базовой или карточной цены строку в неё не добавляет
+    @Transactional
+    public void write(List<PriceChange> changes) {
+        Map<Long, TrackedItem> items = trackedItemRepository
+                .findAllById(changes.stream().map(PriceChange::itemId).toList()).stream()
+                .collect(Collectors.toMap(TrackedItem::getId, Function.identity()));
+        List<PriceHistory> history = new ArrayList<>(changes.size());
+        int written = 0;
+        for (PriceChange change : changes) {
+            TrackedItem item = items.get(change.itemId());
+            if (item == null) {
+                continue;
+            }
+            boolean currentChanged = !change.currentPrice().equals(item.getCurrentPrice());
+            item.setBasicPrice(change.basicPrice());
+            item.setCurrentPrice(change.currentPrice());
+            item.setSalePrice(change.salePrice());
+            written++;
+            if (currentChanged) {
+                history.add(new PriceHistory(null, item, change.currentPrice(), change.timestamp()));
+            }
+        }
+        priceHistoryRepository.saveAll(history);
+        priceHistoryRepository.recordRollups(history);
+        logger.info("Записано изменений цен: {} из {}, в историю: {}", written, changes.size(), history.size());
+    }
+}
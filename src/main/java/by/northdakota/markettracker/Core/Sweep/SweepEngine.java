@@ -0,0 +1,36 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+@Component
+public class SweepEngine {
+
+    private final Map<Marketplace, Semaphore> permits = new EnumMap<>(Marketplace.class);
+    private final Duration deadline;
+    private final int pageSize;
+
+    public SweepEngine(@Value("${sweep.concurrency.wb:8}") int wbConcurrency,
+                       @Value("${sweep.concurrency.ozon:2}") int ozonConcurrency,
+                       @Value("${sweep.deadline:PT25M}") Duration deadline,
+                       @Value("${sweep.page-size:1000}") int pageSize) {
+        this.permits.put(Marketplace.WB, new Semaphore(wbConcurrency));
+        this.permits.put(Marketplace.OZON, new Semaphore(ozonConcurrency));
+        this.deadline = deadline;
+        this.pageSize = pageSize;
+    }
+
+    public SweepRun start(Marketplace marketplace) {
+        return new SweepRun(marketplace, permits.get(marketplace), deadline);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
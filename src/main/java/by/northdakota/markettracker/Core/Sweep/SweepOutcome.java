@@ -0,0 +1,6 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+// NOT_FOUND — маркетплейс ответил, но товара в ответе нет: повторять его с минимальным интервалом бессмысленно
+public enum SweepOutcome {
+    CHANGED, UNCHANGED, NOT_FOUND, FAILED, TIMED_OUT
+}
@@ -0,0 +1,121 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class SweepRun implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SweepRun.class);
+    private static final Duration CANCEL_GRACE = Duration.ofSeconds(10);
+
+    private final Marketplace marketplace;
+    private final Semaphore permits;
+    private final long startNanos;
+    private final long deadlineNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<SweepOutcome, Integer> counts = new EnumMap<>(SweepOutcome.class);
+    private int inFlight;
+    private boolean closed;
+
+    SweepRun(Marketplace marketplace, Semaphore permits, Duration deadline) {
+        this.marketplace = marketplace;
+        this.permits = permits;
+        this.startNanos = System.nanoTime();
+        this.deadlineNanos = startNanos + deadline.toNanos();
+    }
+
+    // блокирует вызывающего, пока у маркетплейса нет свободного слота, поэтому в работе не больше batch'ей, чем слотов
+    public void submit(List<String> articles, BatchCheck check) {
+        if (!acquire()) {
+            record(SweepOutcome.TIMED_OUT, articles.size());
+            return;
+        }
+        synchronized (this) {
+            inFlight += articles.size();
+        }
+        executor.execute(() -> {
+            try {
+                complete(articles, check.check(articles));
+            } catch (Exception e) {
+                logger.warn("Ошибка проверки {} {}: {}", marketplace, articles, e.toString());
+                complete(articles, Map.of());
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    // после возврата ни один batch уже не выполняется, так что итоговый flush не разминётся с поздними изменениями
+    public SweepSummary await() {
+        executor.shutdown();
+        try {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (!executor.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                logger.warn("Проверка {} не уложилась в отведённое время", marketplace);
+                // незавершённые batch'и засчитываются как TIMED_OUT до прерывания, а не как FAILED после него
+                closeCounts();
+                executor.shutdownNow();
+                if (!executor.awaitTermination(CANCEL_GRACE.toNanos(), TimeUnit.NANOSECONDS)) {
+                    logger.warn("Проверка {}: часть batch'ей не ответила на прерывание", marketplace);
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeCounts();
+            return new SweepSummary(marketplace, new EnumMap<>(counts), Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void closeCounts() {
+        if (!closed) {
+            closed = true;
+            counts.merge(SweepOutcome.TIMED_OUT, inFlight, Integer::sum);
+            inFlight = 0;
+        }
+    }
+
+    private boolean acquire() {
+        long remaining = deadlineNanos - System.nanoTime();
+        try {
+            return remaining > 0 && permits.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void complete(List<String> articles, Map<String, SweepOutcome> outcomes) {
+        if (closed) {
+            return;
+        }
+        inFlight -= articles.size();
+        for (String article : articles) {
+            counts.merge(outcomes.getOrDefault(article, SweepOutcome.FAILED), 1, Integer::sum);
+        }
+    }
+
+    private synchronized void record(SweepOutcome outcome, int count) {
+        if (!closed) {
+            counts.merge(outcome, count, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record SweepSummary(Marketplace marketplace, Map<SweepOutcome, Integer> counts, Duration duration) {
+
+    public int count(SweepOutcome outcome) {
+        return counts.getOrDefault(outcome, 0);
+    }
+
+    public int total() {
+        return counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SweepSummary{" +
+                "marketplace=" + marketplace +
+                ", total=" + total() +
+                ", changed=" + count(SweepOutcome.CHANGED) +
+                ", unchanged=" + count(SweepOutcome.UNCHANGED) +
+                ", notFound=" + count(SweepOutcome.NOT_FOUND) +
+                ", failed=" + count(SweepOutcome.FAILED) +
+                ", timedOut=" + count(SweepOutcome.TIMED_OUT) +
+                ", duration=" + duration +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package by.northdakota.markettracker.TelegramBot.Config;
 
 import by.northdakota.markettracker.TelegramBot.TrackerTelegramBot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
@@ -9,7 +10,9 @@ import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 @Configuration
 public class BotConfig {
+    // в режиме webhook обновления приходят через TelegramWebhookController, опрос не запускается
     @Bean
+    @ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "polling", matchIfMissing = true)
     public TelegramBotsApi telegramBotsApi(TrackerTelegramBot bot) throws TelegramApiException {
         TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
         botsApi.registerBot(bot);
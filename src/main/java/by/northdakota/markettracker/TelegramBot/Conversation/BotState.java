@@ -0,0 +1,8 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+public enum BotState {
+    WAITING_FOR_ARTICLE,
+    WAITING_FOR_DELETE,
+    WAITING_FOR_MARKETPLACE,
+    READY
+}
@@ -0,0 +1,17 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ConversationRepository {
+
+    Optional<ConversationState> find(Long chatId, Instant updatedAfter);
+
+    void saveAll(Map<Long, ConversationState> states, Instant updatedAt);
+
+    void deleteAll(Collection<Long> chatIds);
+
+    int deleteOlderThan(Instant cutoff);
+}
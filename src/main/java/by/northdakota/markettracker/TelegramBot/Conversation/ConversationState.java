@@ -0,0 +1,14 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+public record ConversationState(BotState state, String marketplace) {
+
+    public static final ConversationState INITIAL = new ConversationState(BotState.READY, null);
+
+    public ConversationState withState(BotState state) {
+        return new ConversationState(state, marketplace);
+    }
+
+    public boolean isInitial() {
+        return state == BotState.READY && marketplace == null;
+    }
+}
@@ -0,0 +1,140 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+// состояние диалогов в памяти ограничено по размеру и вытесняется после простоя; изменения копятся
+// в dirty и пачкой пишутся в базу, так что после перезапуска диалог продолжается с того же шага
+@Component
+public class ConversationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationStore.class);
+
+    private final Cache<Long, ConversationState> cache;
+    // последнее несохранённое состояние чата; INITIAL означает, что строку нужно удалить
+    private final Map<Long, ConversationState> dirty = new ConcurrentHashMap<>();
+    private final ConversationRepository repository;
+    private final Clock clock;
+    private final Duration ttl;
+    private final boolean persist;
+
+    @Autowired
+    public ConversationStore(ConversationRepository repository,
+                             @Value("${telegram.conversation.ttl:P7D}") Duration ttl,
+                             @Value("${telegram.conversation.max-size:100000}") long maxSize,
+                             @Value("${telegram.conversation.persist:true}") boolean persist) {
+        this(repository, Clock.systemUTC(), Ticker.systemTicker(), ttl, maxSize, persist);
+    }
+
+    ConversationStore(ConversationRepository repository, Clock clock, Ticker ticker,
+                      Duration ttl, long maxSize, boolean persist) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterAccess(ttl)
+                .maximumSize(maxSize)
+                .ticker(ticker)
+                .build();
+        this.repository = repository;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.persist = persist;
+    }
+
+    public ConversationState get(Long chatId) {
+        return cache.get(chatId, this::load);
+    }
+
+    public ConversationState update(Long chatId, UnaryOperator<ConversationState> change) {
+        return cache.asMap().compute(chatId, (id, current) -> {
+            ConversationState next = change.apply(current != null ? current : load(id));
+            if (persist) {
+                dirty.put(id, next);
+            }
+            return next;
+        });
+    }
+
+    public void setState(Long chatId, BotState state) {
+        update(chatId, current -> current.withState(state));
+    }
+
+    public void reset(Long chatId) {
+        update(chatId, current -> ConversationState.INITIAL);
+    }
+
+    // запись снимается из dirty только если за время записи её не изменили ещё раз;
+    // при ошибке базы всё остаётся в dirty до следующего раза
+    @Scheduled(fixedDelayString = "${telegram.conversation.flush-interval:PT5S}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<Long, ConversationState> snapshot = new HashMap<>(dirty);
+        Map<Long, ConversationState> upserts = new HashMap<>();
+        List<Long> deletes = new ArrayList<>();
+        snapshot.forEach((chatId, state) -> {
+            if (state.isInitial()) {
+                deletes.add(chatId);
+            } else {
+                upserts.put(chatId, state);
+            }
+        });
+        try {
+            repository.saveAll(upserts, clock.instant());
+            repository.deleteAll(deletes);
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось сохранить состояние {} диалогов: {}", snapshot.size(), e.getMessage());
+            return;
+        }
+        snapshot.forEach(dirty::remove);
+    }
+
+    @Scheduled(cron = "${telegram.conversation.purge-cron:0 45 3 * * *}")
+    public void purgeExpired() {
+        if (!persist) {
+            return;
+        }
+        int purged = repository.deleteOlderThan(clock.instant().minus(ttl));
+        if (purged > 0) {
+            logger.info("Удалено {} заброшенных диалогов", purged);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private ConversationState load(Long chatId) {
+        ConversationState pending = dirty.get(chatId);
+        if (pending != null) {
+            return pending;
+        }
+        if (!persist) {
+            return ConversationState.INITIAL;
+        }
+        try {
+            return repository.find(chatId, clock.instant().minus(ttl)).orElse(ConversationState.INITIAL);
+        } catch (DataAccessException e) {
+            logger.warn("Не удалось загрузить состояние диалога {}: {}", chatId, e.getMessage());
+            return ConversationState.INITIAL;
+        }
+    }
+}
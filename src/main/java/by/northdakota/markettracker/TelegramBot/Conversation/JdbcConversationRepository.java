@@ -0,0 +1,63 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+public class JdbcConversationRepository implements ConversationRepository {
+
+    private static final String SELECT =
+            "select state, marketplace from conversation_state where chat_id = ? and updated_at > ?";
+    private static final String UPSERT = """
+            insert into conversation_state (chat_id, state, marketplace, updated_at)
+            values (?, ?, ?, ?)
+            on conflict (chat_id) do update set
+                state = excluded.state,
+                marketplace = excluded.marketplace,
+                updated_at = excluded.updated_at""";
+    private static final String DELETE = "delete from conversation_state where chat_id = ?";
+    private static final String DELETE_OLDER = "delete from conversation_state where updated_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcConversationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<ConversationState> find(Long chatId, Instant updatedAfter) {
+        return jdbcTemplate.query(SELECT,
+                (rs, row) -> new ConversationState(BotState.valueOf(rs.getString(1)), rs.getString(2)),
+                chatId, Timestamp.from(updatedAfter)).stream().findFirst();
+    }
+
+    @Override
+    public void saveAll(Map<Long, ConversationState> states, Instant updatedAt) {
+        if (states.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(updatedAt);
+        jdbcTemplate.batchUpdate(UPSERT, states.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue().state().name(), e.getValue().marketplace(), timestamp})
+                .toList());
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> chatIds) {
+        if (chatIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE, chatIds.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    @Override
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update(DELETE_OLDER, Timestamp.from(cutoff));
+    }
+}
@@ -0,0 +1,117 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// копит изменения цен по чатам до конца проверки маркетплейса и отправляет каждому чату один дайджест,
+// так что число сообщений растёт с числом чатов, а не изменившихся товаров
+@Component
+public class NotificationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    static final int MESSAGE_LIMIT = 4096;
+    private static final int TITLE_LIMIT = 200;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration window;
+
+    private final Map<Marketplace, Map<Long, List<PriceChangeEvent>>> pending = new EnumMap<>(Marketplace.class);
+    private final Map<Marketplace, Long> windowStart = new EnumMap<>(Marketplace.class);
+
+    public NotificationCoalescer(ApplicationEventPublisher eventPublisher,
+                                 @Value("${notification.coalesce.window:PT40M}") Duration window) {
+        this.eventPublisher = eventPublisher;
+        this.window = window;
+    }
+
+    @EventListener
+    public synchronized void onPriceChange(PriceChangeEvent change) {
+        pending.computeIfAbsent(change.marketplace(), m -> new LinkedHashMap<>())
+                .computeIfAbsent(change.chatId(), id -> new ArrayList<>())
+                .add(change);
+        windowStart.putIfAbsent(change.marketplace(), System.nanoTime());
+    }
+
+    @EventListener
+    public void onSweepCompleted(SweepSummary summary) {
+        flush(summary.marketplace());
+    }
+
+    // страховка на случай, если проверка оборвалась и не дошла до публикации итогов
+    @Scheduled(fixedDelayString = "${notification.coalesce.check-interval:PT1M}")
+    public void flushExpired() {
+        for (Marketplace marketplace : Marketplace.values()) {
+            Long start;
+            synchronized (this) {
+                start = windowStart.get(marketplace);
+            }
+            if (start != null && System.nanoTime() - start >= window.toNanos()) {
+                flush(marketplace);
+            }
+        }
+    }
+
+    public void flush(Marketplace marketplace) {
+        Map<Long, List<PriceChangeEvent>> changes;
+        synchronized (this) {
+            changes = pending.remove(marketplace);
+            windowStart.remove(marketplace);
+        }
+        if (changes == null) {
+            return;
+        }
+        int messages = 0;
+        for (Map.Entry<Long, List<PriceChangeEvent>> chat : changes.entrySet()) {
+            for (String text : digest(marketplace, chat.getValue())) {
+                eventPublisher.publishEvent(new Notification(chat.getKey(), text));
+                messages++;
+            }
+        }
+        logger.info("Дайджест изменений {}: чатов {}, сообщений {}", marketplace, changes.size(), messages);
+    }
+
+    static List<String> digest(Marketplace marketplace, List<PriceChangeEvent> changes) {
+        String header = String.format("💰 Изменились цены на %s (%d):\n\n", marketplace, changes.size());
+        List<String> messages = new ArrayList<>();
+        StringBuilder current = new StringBuilder(header);
+        for (PriceChangeEvent change : changes) {
+            String line = String.format("%s\nАртикул: %s\n%s → %s ₽\n",
+                    shorten(change.title()),
+                    change.article(),
+                    change.oldPrice(),
+                    change.newPrice());
+            if (change.saleChanged()) {
+                line += String.format("По карте: %s → %s ₽\n", change.oldSalePrice(), change.newSalePrice());
+            }
+            line += "\n";
+            if (current.length() + line.length() > MESSAGE_LIMIT) {
+                messages.add(current.toString().stripTrailing());
+                current = new StringBuilder();
+            }
+            current.append(line);
+        }
+        messages.add(current.toString().stripTrailing());
+        return messages;
+    }
+
+    private static String shorten(String title) {
+        return title.length() <= TITLE_LIMIT ? title : title.substring(0, TITLE_LIMIT - 1) + "…";
+    }
+}
@@ -0,0 +1,232 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import by.northdakota.markettracker.Core.Entity.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int CHAT_BUCKETS_SOFT_LIMIT = 10_000;
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private final AbsSender sender;
+    private final Semaphore capacity;
+    private final DelayQueue<OutgoingMessage> queue = new DelayQueue<>();
+    private final TokenBucket globalBucket;
+    private final Map<Long, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final double chatPerSecond;
+    private final int chatBurst;
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final Timer sendTimer;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter retried;
+    private final Counter failed;
+
+    public NotificationDispatcher(AbsSender sender,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${telegram.dispatcher.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${telegram.dispatcher.workers:4}") int workers,
+                                  @Value("${telegram.dispatcher.global-per-second:30}") double globalPerSecond,
+                                  @Value("${telegram.dispatcher.chat-per-second:1}") double chatPerSecond,
+                                  @Value("${telegram.dispatcher.chat-burst:1}") int chatBurst,
+                                  @Value("${telegram.dispatcher.max-attempts:5}") int maxAttempts,
+                                  @Value("${telegram.dispatcher.backoff:PT1S}") Duration backoff) {
+        this.sender = sender;
+        this.capacity = new Semaphore(queueCapacity);
+        this.globalBucket = new TokenBucket(globalPerSecond, (int) Math.ceil(globalPerSecond));
+        this.chatPerSecond = chatPerSecond;
+        this.chatBurst = chatBurst;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+
+        meterRegistry.gauge("telegram.dispatcher.queue.size", queue, DelayQueue::size);
+        this.sendTimer = Timer.builder("telegram.dispatcher.send").register(meterRegistry);
+        this.sent = meterRegistry.counter("telegram.dispatcher.messages", "result", "sent");
+        this.dropped = meterRegistry.counter("telegram.dispatcher.messages", "result", "dropped");
+        this.retried = meterRegistry.counter("telegram.dispatcher.messages", "result", "retried");
+        this.failed = meterRegistry.counter("telegram.dispatcher.messages", "result", "failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            threads.add(Thread.ofVirtual().name("tg-dispatcher-" + i).start(this::work));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        threads.forEach(Thread::interrupt);
+        if (!queue.isEmpty()) {
+            logger.warn("Остановка диспетчера: не отправлено сообщений: {}", queue.size());
+        }
+    }
+
+    @EventListener
+    public void onNotification(Notification notification) {
+        submit(notification.getChatId(), notification.getMessage());
+    }
+
+    // никогда не блокирует: при переполненной очереди сообщение отбрасывается, чтобы проверка цен не ждала Telegram
+    public boolean submit(Long chatId, String text) {
+        if (!capacity.tryAcquire()) {
+            dropped.increment();
+            logger.warn("Очередь уведомлений переполнена, сообщение в чат {} отброшено", chatId);
+            return false;
+        }
+        queue.put(new OutgoingMessage(chatId, text, sequence.incrementAndGet(), System.nanoTime()));
+        return true;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                dispatch(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void dispatch(OutgoingMessage message) throws InterruptedException {
+        long now = System.nanoTime();
+        if (!message.chatSlotReserved) {
+            message.chatSlotReserved = true;
+            long chatSlot = chatBucket(message.chatId, now).reserve(now);
+            if (chatSlot > now) {
+                message.readyAt = chatSlot;
+                queue.put(message);
+                return;
+            }
+        }
+        long globalSlot = globalBucket.reserve(now);
+        if (globalSlot > now) {
+            TimeUnit.NANOSECONDS.sleep(globalSlot - now);
+        }
+        send(message);
+    }
+
+    private void send(OutgoingMessage message) {
+        SendMessage request = new SendMessage();
+        request.setChatId(message.chatId.toString());
+        request.setText(message.text);
+        long start = System.nanoTime();
+        try {
+            sender.execute(request);
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            sent.increment();
+            capacity.release();
+        } catch (TelegramApiRequestException e) {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (e.getErrorCode() != null && e.getErrorCode() == TOO_MANY_REQUESTS) {
+                retry(message, retryAfter(e, message));
+            } else {
+                giveUp(message, e.getApiResponse());
+            }
+        } catch (TelegramApiException e) {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            retry(message, backoff(message));
+        }
+    }
+
+    private void retry(OutgoingMessage message, Duration delay) {
+        message.attempts++;
+        if (message.attempts >= maxAttempts) {
+            giveUp(message, "исчерпаны попытки");
+            return;
+        }
+        retried.increment();
+        // повторная отправка тоже занимает слот чата, иначе после 429 сообщение уйдёт в обход лимита
+        message.chatSlotReserved = false;
+        message.readyAt = System.nanoTime() + delay.toNanos();
+        queue.put(message);
+    }
+
+    private void giveUp(OutgoingMessage message, String reason) {
+        failed.increment();
+        capacity.release();
+        logger.warn("Не удалось отправить уведомление в чат {}: {}", message.chatId, reason);
+    }
+
+    private Duration retryAfter(TelegramApiRequestException e, OutgoingMessage message) {
+        if (e.getParameters() != null && e.getParameters().getRetryAfter() != null) {
+            return Duration.ofSeconds(e.getParameters().getRetryAfter());
+        }
+        return backoff(message);
+    }
+
+    private Duration backoff(OutgoingMessage message) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(message.attempts, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private TokenBucket chatBucket(Long chatId, long now) {
+        if (chatBuckets.size() > CHAT_BUCKETS_SOFT_LIMIT) {
+            chatBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+        return chatBuckets.computeIfAbsent(chatId, id -> new TokenBucket(chatPerSecond, chatBurst));
+    }
+
+    private static final class OutgoingMessage implements Delayed {
+
+        private final Long chatId;
+        private final String text;
+        private final long sequence;
+        private volatile long readyAt;
+        private boolean chatSlotReserved;
+        private int attempts;
+
+        private OutgoingMessage(Long chatId, String text, long sequence, long readyAt) {
+            this.chatId = chatId;
+            this.text = text;
+            this.sequence = sequence;
+            this.readyAt = readyAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            OutgoingMessage that = (OutgoingMessage) other;
+            int byTime = Long.compare(readyAt, that.readyAt);
+            return byTime != 0 ? byTime : Long.compare(sequence, that.sequence);
+        }
+    }
+}
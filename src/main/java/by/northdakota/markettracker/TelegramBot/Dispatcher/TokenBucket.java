@@ -0,0 +1,26 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+// GCRA-вариант token bucket: reserve не ждёт, а сразу отдаёт момент, когда токен можно использовать,
+// и резервирует его, так что очередность слотов совпадает с очередностью вызовов
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstNanos = intervalNanos * (Math.max(burst, 1) - 1);
+        this.theoreticalArrival = Long.MIN_VALUE / 2;
+    }
+
+    public synchronized long reserve(long nowNanos) {
+        long allowedAt = Math.max(theoreticalArrival - burstNanos, nowNanos);
+        theoreticalArrival = Math.max(theoreticalArrival, nowNanos) + intervalNanos;
+        return allowedAt;
+    }
+
+    public synchronized boolean isIdle(long nowNanos) {
+        return theoreticalArrival <= nowNanos;
+    }
+}
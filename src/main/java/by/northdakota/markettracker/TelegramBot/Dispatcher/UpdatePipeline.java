@@ -0,0 +1,159 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// входящие обновления одного чата обрабатываются строго по очереди, разные чаты — параллельно на виртуальных потоках;
+// у чата с непустой очередью ровно один обработчик, он же убирает очередь с карты, когда она опустела
+@Component
+public class UpdatePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdatePipeline.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("tg-update-", 0).factory());
+    private final Map<Long, Deque<Runnable>> chats = new ConcurrentHashMap<>();
+    private final Semaphore capacity;
+    private final int chatCapacity;
+    private final Duration shutdownTimeout;
+    private volatile boolean stopping;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter discarded;
+
+    public UpdatePipeline(MeterRegistry meterRegistry,
+                          @Value("${telegram.updates.queue-capacity:10000}") int queueCapacity,
+                          @Value("${telegram.updates.chat-capacity:20}") int chatCapacity,
+                          @Value("${telegram.updates.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.capacity = new Semaphore(queueCapacity);
+        this.chatCapacity = chatCapacity;
+        this.shutdownTimeout = shutdownTimeout;
+
+        meterRegistry.gauge("telegram.updates.chats", chats, Map::size);
+        this.accepted = meterRegistry.counter("telegram.updates", "result", "accepted");
+        this.rejected = meterRegistry.counter("telegram.updates", "result", "rejected");
+        this.failed = meterRegistry.counter("telegram.updates", "result", "failed");
+        this.discarded = meterRegistry.counter("telegram.updates", "result", "discarded");
+    }
+
+    // никогда не блокирует поток опроса: при переполнении обновление отклоняется
+    public boolean submit(Long chatId, Runnable task) {
+        if (stopping) {
+            rejected.increment();
+            logger.warn("Конвейер обновлений останавливается, обновление чата {} отклонено", chatId);
+            return false;
+        }
+        if (!capacity.tryAcquire()) {
+            rejected.increment();
+            logger.warn("Очередь обновлений переполнена, обновление чата {} отклонено", chatId);
+            return false;
+        }
+        boolean[] added = {false};
+        boolean[] first = {false};
+        chats.compute(chatId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                first[0] = true;
+            }
+            if (queue.size() < chatCapacity) {
+                queue.addLast(task);
+                added[0] = true;
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        if (!added[0]) {
+            capacity.release();
+            rejected.increment();
+            logger.warn("Слишком много необработанных обновлений от чата {}", chatId);
+            return false;
+        }
+        accepted.increment();
+        if (first[0]) {
+            executor.execute(() -> drain(chatId));
+        }
+        return true;
+    }
+
+    // новые обновления больше не принимаются, уже принятые дорабатываются в пределах shutdownTimeout;
+    // то, что не успело, снимается с очередей и считается, обработчики прерываются
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        int lost = 0;
+        int lostChats = 0;
+        for (Long chatId : List.copyOf(chats.keySet())) {
+            Deque<Runnable> queue = chats.remove(chatId);
+            if (queue != null) {
+                lost += queue.size();
+                lostChats++;
+            }
+        }
+        discarded.increment(lost);
+        logger.warn("Остановка конвейера обновлений: за {} не обработано обновлений: {} в {} чатах",
+                shutdownTimeout, lost, lostChats);
+        executor.shutdownNow();
+    }
+
+    private void drain(Long chatId) {
+        Runnable task = next(chatId, false);
+        while (task != null) {
+            boolean handled = false;
+            try {
+                task.run();
+                handled = true;
+            } catch (RuntimeException e) {
+                handled = true;
+                failed.increment();
+                logger.error("Ошибка обработки обновления чата {}", chatId, e);
+            } finally {
+                capacity.release();
+                if (!handled) {
+                    // Error завершает этот обработчик: снимаем упавшую задачу и передаём остаток очереди новому,
+                    // иначе чат навсегда останется с головой очереди и без обработчика
+                    failed.increment();
+                    logger.error("Критическая ошибка обработки обновления чата {}", chatId);
+                    if (next(chatId, true) != null && !executor.isShutdown()) {
+                        executor.execute(() -> drain(chatId));
+                    }
+                }
+            }
+            task = next(chatId, true);
+        }
+    }
+
+    // выполняемая задача остаётся в голове очереди до завершения, поэтому пока чат не пуст,
+    // новые обновления не запускают второй обработчик
+    private Runnable next(Long chatId, boolean completed) {
+        Runnable[] next = {null};
+        chats.computeIfPresent(chatId, (id, queue) -> {
+            if (completed) {
+                queue.pollFirst();
+            }
+            next[0] = queue.peekFirst();
+            return next[0] == null ? null : queue;
+        });
+        return next[0];
+    }
+}
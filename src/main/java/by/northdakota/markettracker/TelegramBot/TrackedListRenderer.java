@@ -0,0 +1,103 @@
+package by.northdakota.markettracker.TelegramBot;
+
+import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
+import by.northdakota.markettracker.Core.Entity.TrackingChangedEvent;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// текст /list собирается одним запросом-проекцией и хранится по чату, пока у чата не поменяется список или цены
+@Component
+public class TrackedListRenderer {
+
+    private final TrackedItemRepository trackedItemRepository;
+    private final int pageSize;
+    // страницы списка по чату; при инвалидации чат выбрасывается целиком
+    private final Cache<Long, Map<Integer, String>> pages;
+
+    public TrackedListRenderer(TrackedItemRepository trackedItemRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${telegram.list.page-size:20}") int pageSize,
+                               @Value("${telegram.list.cache-size:10000}") long cacheSize,
+                               @Value("${telegram.list.cache-ttl:PT30M}") Duration cacheTtl) {
+        this.trackedItemRepository = trackedItemRepository;
+        this.pageSize = pageSize;
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "telegram.list");
+    }
+
+    // page начинается с 1
+    public String render(Long chatId, int page) {
+        return pages.get(chatId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(page, p -> renderPage(chatId, p));
+    }
+
+    public void invalidate(Long chatId) {
+        pages.invalidate(chatId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrackingChanged(TrackingChangedEvent event) {
+        invalidate(event.chatId());
+    }
+
+    // PriceChangeEvent публикуется уже после коммита записи цен, так что перечитанный список их увидит
+    @EventListener
+    public void onPriceChange(PriceChangeEvent event) {
+        invalidate(event.chatId());
+    }
+
+    private String renderPage(Long chatId, int page) {
+        Slice<TrackedItemDto> items = trackedItemRepository.findListByChatId(chatId, PageRequest.of(page - 1, pageSize));
+        if (!items.hasContent()) {
+            return page == 1 ? "Вы пока не отслеживаете ни один товар." : "На странице " + page + " товаров нет.";
+        }
+        StringBuilder response = new StringBuilder("Ваши отслеживаемые товары:\n\n");
+        List<TrackedItemDto> content = items.getContent();
+        int offset = (page - 1) * pageSize;
+        for (int i = 0; i < content.size(); i++) {
+            TrackedItemDto item = content.get(i);
+            if (item.getMarketplace() == Marketplace.OZON) {
+                response.append(String.format(
+                        "%d. %s\nАртикул: %s\nТекущая цена без карты: %s ₽ \n Текущая цена с картой: %s ₽ \n Базовая цена: %s ₽\n\n",
+                        offset + i + 1,
+                        item.getTitle(),
+                        item.getArticle(),
+                        item.getCurrentPrice(),
+                        item.getSalePrice(),
+                        item.getBasicPrice()));
+            } else {
+                response.append(String.format(
+                        "%d. %s\nАртикул: %s\nТекущая цена: %s ₽\nБазовая цена: %s ₽\n\n",
+                        offset + i + 1,
+                        item.getTitle(),
+                        item.getArticle(),
+                        item.getCurrentPrice(),
+                        item.getBasicPrice()));
+            }
+        }
+        if (items.hasNext()) {
+            response.append("Дальше: /list ").append(page + 1);
+        }
+        return response.toString();
+    }
+}
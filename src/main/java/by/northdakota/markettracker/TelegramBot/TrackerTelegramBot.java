@@ -1,26 +1,34 @@
 package by.northdakota.markettracker.TelegramBot;
 
 import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
-import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.History.PriceHistoryService;
 import by.northdakota.markettracker.Core.Service.OzonTrackerService;
 import by.northdakota.markettracker.Core.Service.WbTrackerService;
+import by.northdakota.markettracker.TelegramBot.Conversation.BotState;
+import by.northdakota.markettracker.TelegramBot.Conversation.ConversationState;
+import by.northdakota.markettracker.TelegramBot.Conversation.ConversationStore;
+import by.northdakota.markettracker.TelegramBot.Dispatcher.UpdatePipeline;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
 
 @Component
@@ -29,44 +37,84 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
 
     private final WbTrackerService wbTrackerService;
     private final OzonTrackerService ozonTrackerService;
+    private final PriceHistoryService priceHistoryService;
+    private final ConversationStore conversations;
+    private final UpdatePipeline updatePipeline;
+    private final TrackedListRenderer trackedListRenderer;
 
     private static final Logger loggerBot = LoggerFactory.getLogger(TrackerTelegramBot.class);
 
     @Value("${telegram.bot.name}")
     private String botUsername;
 
-    enum BotState {
-        WAITING_FOR_ARTICLE,
-        WAITING_FOR_DELETE,
-        WAITING_FOR_MARKETPLACE,
-        READY
-    }
-
-    private final Map<Long, BotState> userStates = new HashMap<>();
-    private final Map<Long, String> userMarketplace = new HashMap<>();
-
     private final String startBot = "/start";
     private final String listBot = "/list";
     private final String deleteBot = "/delete";
+    private final String historyBot = "/history";
+    private static final int HISTORY_DEFAULT_DAYS = 30;
+    private static final int HISTORY_MAX_DAYS = 365;
 
     @Autowired
-    private TrackerTelegramBot(@Value("${telegram.bot.token}") String botToken,
-                               WbTrackerService wbTrackerService,
-                               OzonTrackerService ozonTrackerService){
-        super(botToken);
+    TrackerTelegramBot(@Value("${telegram.bot.token}") String botToken,
+                       @Value("${telegram.bot.api-url:https://api.telegram.org/bot}") String apiUrl,
+                       WbTrackerService wbTrackerService,
+                       OzonTrackerService ozonTrackerService,
+                       PriceHistoryService priceHistoryService,
+                       ConversationStore conversations,
+                       UpdatePipeline updatePipeline,
+                       TrackedListRenderer trackedListRenderer){
+        super(options(apiUrl), botToken);
         this.wbTrackerService = wbTrackerService;
         this.ozonTrackerService = ozonTrackerService;
+        this.priceHistoryService = priceHistoryService;
+        this.conversations = conversations;
+        this.updatePipeline = updatePipeline;
+        this.trackedListRenderer = trackedListRenderer;
+    }
+
+    private static DefaultBotOptions options(String apiUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(apiUrl);
+        return options;
     }
 
+    // поток опроса только раскладывает обновления по чатам: добавление товара с загрузкой страницы Ozon
+    // не должно задерживать ответы другим пользователям
     @Override
     public void onUpdateReceived(Update update){
+        Long chatId = chatIdOf(update);
+        if (chatId != null && !enqueue(chatId, update)) {
+            sendMessage(chatId, "Слишком много запросов, попробуйте чуть позже.");
+        }
+    }
+
+    // для вебхука: отказ не сообщается пользователю, Telegram сам повторит доставку
+    public boolean enqueue(Update update) {
+        Long chatId = chatIdOf(update);
+        return chatId == null || enqueue(chatId, update);
+    }
+
+    private boolean enqueue(Long chatId, Update update) {
+        return updatePipeline.submit(chatId, () -> handleUpdate(update));
+    }
+
+    private static Long chatIdOf(Update update) {
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        return null;
+    }
+
+    private void handleUpdate(Update update){
         if (update.hasCallbackQuery()) {
             Long chatId = update.getCallbackQuery().getMessage().getChatId();
             String callbackData = update.getCallbackQuery().getData();
 
             if ("WB".equals(callbackData) || "OZON".equals(callbackData)) {
-                userMarketplace.put(chatId, callbackData);
-                userStates.put(chatId, BotState.WAITING_FOR_ARTICLE);
+                conversations.update(chatId, current -> new ConversationState(BotState.WAITING_FOR_ARTICLE, callbackData));
                 sendMessage(chatId, "Вы выбрали маркетплейс: " + callbackData + ". Теперь введите артикул товара.");
                 try {
                     execute(new AnswerCallbackQuery(update.getCallbackQuery().getId()));
@@ -87,36 +135,37 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
 
         loggerBot.info("Received message: "+message + "от пользователя "+ username);
 
-        BotState currentState = userStates.getOrDefault(chatId, BotState.READY);
+        ConversationState conversation = conversations.get(chatId);
+        BotState currentState = conversation.state();
 
         if (message.startsWith("/")) {
-            switch (message) {
+            switch (message.split("\\s+")[0]) {
                 case startBot -> {
                     if (currentState != BotState.READY) {
                         sendMessage(chatId, "Вы уже начали работу с ботом. Продолжайте, пожалуйста.");
                     } else {
                         String userName = update.getMessage().getChat().getUserName();
                         startCommand(chatId, userName);
-                        userStates.put(chatId, BotState.WAITING_FOR_MARKETPLACE);
+                        conversations.setState(chatId, BotState.WAITING_FOR_MARKETPLACE);
                     }
                 }
                 case "/reset" -> {
-                    userStates.remove(chatId);
-                    userMarketplace.remove(chatId);
+                    conversations.reset(chatId);
                     sendMessage(chatId, "Состояние сброшено. Введите /start для начала.");
                 }
-                case listBot -> listCommand(chatId);
+                case listBot -> listCommand(chatId, message);
                 case deleteBot -> {
                     sendMessage(chatId,"Введите артикул:");
-                    userStates.put(chatId,BotState.WAITING_FOR_DELETE);
+                    conversations.setState(chatId, BotState.WAITING_FOR_DELETE);
                 }
-                default -> sendMessage(chatId, "Неизвестная команда. Введите /start, /list, /delete или /reset");
+                case historyBot -> historyCommand(chatId, message);
+                default -> sendMessage(chatId, "Неизвестная команда. Введите /start, /list, /history, /delete или /reset");
             }
         } else {
-            BotState state = userStates.getOrDefault(chatId, BotState.READY);
+            BotState state = currentState;
             if (state == BotState.WAITING_FOR_ARTICLE) {
                 try {
-                    String marketplace = userMarketplace.get(chatId);
+                    String marketplace = conversation.marketplace();
                     if (marketplace == null) {
                         sendMessage(chatId, "Пожалуйста, выберите маркетплейс командой /start.");
                         return;
@@ -125,14 +174,14 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
-                userStates.put(chatId, BotState.READY);
+                conversations.setState(chatId, BotState.READY);
             } else if(state == BotState.WAITING_FOR_DELETE){
                 try {
                     deleteCommand(message,chatId);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
-                userStates.put(chatId, BotState.READY);
+                conversations.setState(chatId, BotState.READY);
             } else if(state == BotState.WAITING_FOR_MARKETPLACE){
                 sendMessage(chatId, "Пожалуйста, выберите маркетплейс с помощью кнопок.");
             } else {
@@ -179,6 +228,7 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
             sendMessage(chatId, "некорректный артикул");
             return;
         }
+        sendMessage(chatId, "Ищу товар " + article + ", это может занять до минуты ⏳");
         Optional<TrackedItemDto> itemOpt;
         if ("WB".equals(marketplace)) {
             itemOpt = wbTrackerService.startTracking(article, chatId);
@@ -196,55 +246,82 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
         sendMessage(chatId, "Товар с артикулом " + article + " добавлен в отслеживание ✅");
         String text;
         if(marketplace.equals("WB")){
-            text = String.format("Ваш товар: \n %s \n Текущая цена: %.2f ₽ \t Базовая цена: %.2f ₽ \n",item.getTitle(),
-                    item.getCurrentPrice().divide(BigDecimal.valueOf(100)).doubleValue(),
-                    item.getBasicPrice().divide(BigDecimal.valueOf(100)).doubleValue());
+            text = String.format("Ваш товар: \n %s \n Текущая цена: %s ₽ \t Базовая цена: %s ₽ \n",item.getTitle(),
+                    item.getCurrentPrice(),
+                    item.getBasicPrice());
         }else{
-            text = String.format("Ваш товар: \n %s \n Текущая цена без карты: %d ₽ \n Текущая цена с картой: %d ₽ \n Базовая цена: %d ₽\n",
+            text = String.format("Ваш товар: \n %s \n Текущая цена без карты: %s ₽ \n Текущая цена с картой: %s ₽ \n Базовая цена: %s ₽\n",
                     item.getTitle(),
-                    item.getCurrentPrice().toBigInteger(),
-                    item.getSalePrice().toBigInteger(),
-                    item.getBasicPrice().toBigInteger());
+                    item.getCurrentPrice(),
+                    item.getSalePrice(),
+                    item.getBasicPrice());
         }
 
         sendMessage(chatId,text);
     }
 
 
-    private void listCommand(Long chatId){
-        List<TrackedItemDto> itemsWb = wbTrackerService.getUserTrackedItem(chatId);
-        List<TrackedItemDto> itemsOzon = ozonTrackerService.getUserTrackedItem(chatId);
-        if (itemsWb.isEmpty() && itemsOzon.isEmpty()) {
-            sendMessage(chatId, "Вы пока не отслеживаете ни один товар.");
-            return;
+    // /list [страница]
+    private void listCommand(Long chatId, String message){
+        String[] args = message.trim().split("\\s+");
+        int page = 1;
+        if (args.length > 1) {
+            try {
+                page = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                sendMessage(chatId, "Введите: /list [страница]");
+                return;
+            }
         }
+        sendMessage(chatId, trackedListRenderer.render(chatId, page));
+    }
 
-        StringBuilder response = new StringBuilder("Ваши отслеживаемые товары:\n\n");
-        int index = 0;
-        for (int i = 0; i < itemsWb.size(); i++,index++) {
-            TrackedItemDto item = itemsWb.get(i);
-            response.append(String.format(
-                    "%d. %s\nАртикул: %s\nТекущая цена: %.2f ₽\nБазовая цена: %.2f ₽\n\n",
-                    i + 1,
-                    item.getTitle(),
-                    item.getArticle(),
-                    item.getCurrentPrice().divide(BigDecimal.valueOf(100)).doubleValue(),
-                    item.getBasicPrice().divide(BigDecimal.valueOf(100)).doubleValue()
-            ));
+    // /history <wb|ozon> <артикул> [дней]
+    private void historyCommand(Long chatId, String message) {
+        String[] args = message.trim().split("\\s+");
+        Marketplace marketplace = args.length > 2 ? marketplaceOf(args[1]) : null;
+        if (marketplace == null) {
+            sendMessage(chatId, "Введите: /history <wb|ozon> <артикул> [дней]");
+            return;
         }
-        for (int i = 0; i < itemsOzon.size(); i++,index++) {
-            TrackedItemDto item = itemsOzon.get(i);
-            response.append(String.format(
-                    "%d. %s\nАртикул: %s\nТекущая цена без карты: %d ₽ \n Текущая цена с картой: %d ₽ \n Базовая цена: %d ₽\n\n",
-                    index + 1,
-                    item.getTitle(),
-                    item.getArticle(),
-                    item.getCurrentPrice().toBigInteger(),
-                    item.getSalePrice().toBigInteger(),
-                    item.getBasicPrice().toBigInteger()
-            ));
+        String article = args[2];
+        int days = HISTORY_DEFAULT_DAYS;
+        if (args.length > 3) {
+            try {
+                days = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                days = -1;
+            }
+            if (days < 1 || days > HISTORY_MAX_DAYS) {
+                sendMessage(chatId, "Период должен быть от 1 до " + HISTORY_MAX_DAYS + " дней.");
+                return;
+            }
+        }
+        Optional<byte[]> chart = priceHistoryService.chart(chatId, marketplace, article, Duration.ofDays(days));
+        if (chart.isEmpty()) {
+            sendMessage(chatId, "Товар " + marketplace + " с артикулом " + article + " не найден среди отслеживаемых.");
+            return;
+        }
+        SendPhoto photo = new SendPhoto();
+        photo.setChatId(chatId.toString());
+        photo.setPhoto(new InputFile(new ByteArrayInputStream(chart.get()), "history-" + article + ".png"));
+        photo.setCaption("История цены за " + days + " дн.");
+        try {
+            execute(photo);
+        } catch (TelegramApiException e) {
+            loggerBot.error("Не удалось отправить график цены чату {}", chatId, e);
+        }
+    }
+
+    private static Marketplace marketplaceOf(String name) {
+        try {
+            return Marketplace.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        sendMessage(chatId, response.toString());
     }
 
     private void deleteCommand(String article,Long chatId) throws IOException {
@@ -252,12 +329,6 @@ public class TrackerTelegramBot extends TelegramLongPollingBot {
         sendMessage(chatId,"Отслеживание прекращено.");
     }
 
-    @EventListener
-    public void handleTelegramMessage(Notification event) {
-        sendMessage(event.getChatId(), event.getMessage());
-    }
-
-
     public void sendMessage(Long chatId, String text) {
 
         SendMessage message = new SendMessage();
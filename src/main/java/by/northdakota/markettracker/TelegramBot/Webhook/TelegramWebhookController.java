@@ -0,0 +1,55 @@
+package by.northdakota.markettracker.TelegramBot.Webhook;
+
+import by.northdakota.markettracker.TelegramBot.TrackerTelegramBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// обновление только ставится в очередь; если очередь полна, 503 заставляет Telegram повторить доставку позже
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+
+    public static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private static final Logger logger = LoggerFactory.getLogger(TelegramWebhookController.class);
+
+    private final TrackerTelegramBot bot;
+    private final byte[] secret;
+
+    public TelegramWebhookController(TrackerTelegramBot bot,
+                                     @Value("${telegram.webhook.secret:}") String secret) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("Для режима webhook нужен telegram.webhook.secret");
+        }
+        this.bot = bot;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("${telegram.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> receive(@RequestHeader(name = SECRET_HEADER, required = false) String token,
+                                        @RequestBody Update update) {
+        if (token == null || !MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Отклонён запрос к вебхуку с неверным секретом");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!bot.enqueue(update)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,46 @@
+package by.northdakota.markettracker.TelegramBot.Webhook;
+
+import by.northdakota.markettracker.TelegramBot.TrackerTelegramBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+// адрес вебхука регистрируется, когда приложение уже принимает запросы, иначе первые обновления уйдут в пустоту
+@Component
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class WebhookRegistrar {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookRegistrar.class);
+
+    private final TrackerTelegramBot bot;
+    private final String url;
+    private final String secret;
+    private final int maxConnections;
+
+    public WebhookRegistrar(TrackerTelegramBot bot,
+                            @Value("${telegram.webhook.public-url}") String publicUrl,
+                            @Value("${telegram.webhook.path:/telegram/webhook}") String path,
+                            @Value("${telegram.webhook.secret}") String secret,
+                            @Value("${telegram.webhook.max-connections:40}") int maxConnections) {
+        this.bot = bot;
+        this.url = publicUrl.replaceAll("/+$", "") + path;
+        this.secret = secret;
+        this.maxConnections = maxConnections;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() throws TelegramApiException {
+        bot.execute(SetWebhook.builder()
+                .url(url)
+                .secretToken(secret)
+                .maxConnections(maxConnections)
+                .build());
+        logger.info("Вебхук зарегистрирован: {}", url);
+    }
+}
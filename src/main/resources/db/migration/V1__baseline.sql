@@ -0,0 +1,23 @@
+-- схема в том виде, в каком её создавал ddl-auto: update; на существующей базе ничего не меняет
+create sequence if not exists tracked_item_sequence start with 1 increment by 20;
+create sequence if not exists price_history_sequence start with 1 increment by 20;
+
+create table if not exists tracked_items (
+    id            bigint       not null primary key,
+    article       varchar(255) not null,
+    title         varchar(255) not null,
+    current_price numeric(38, 2) not null,
+    basic_price   numeric(38, 2) not null,
+    sale_price    numeric(38, 2),
+    marketplace   varchar(255) not null check (marketplace in ('WB', 'OZON')),
+    chat_id       bigint       not null
+);
+
+create index if not exists idx_tracked_items_marketplace_article on tracked_items (marketplace, article);
+
+create table if not exists price_history (
+    id        bigint not null primary key,
+    item_id   bigint not null references tracked_items (id),
+    price     numeric(38, 2),
+    timestamp timestamp(6)
+);
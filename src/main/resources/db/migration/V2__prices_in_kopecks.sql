@@ -0,0 +1,20 @@
+-- WB уже хранил копейки, Ozon хранил рубли
+update price_history h
+set price = h.price * 100
+from tracked_items i
+where h.item_id = i.id
+  and i.marketplace = 'OZON';
+
+update tracked_items
+set current_price = current_price * 100,
+    basic_price   = basic_price * 100,
+    sale_price    = sale_price * 100
+where marketplace = 'OZON';
+
+alter table tracked_items
+    alter column current_price type bigint using round(current_price),
+    alter column basic_price type bigint using round(basic_price),
+    alter column sale_price type bigint using round(sale_price);
+
+alter table price_history
+    alter column price type bigint using round(price);
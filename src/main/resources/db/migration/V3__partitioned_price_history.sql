@@ -0,0 +1,67 @@
+-- price_history становится секционированной по месяцам; ключ (item_id, timestamp) с price в индексе,
+-- чтобы выборка истории товара за период читалась из индекса без обращения к строкам
+alter table price_history rename to price_history_legacy;
+alter index if exists price_history_pkey rename to price_history_legacy_pkey;
+
+create table price_history (
+    id        bigint       not null,
+    item_id   bigint       not null references tracked_items (id) on delete cascade,
+    price     bigint       not null,
+    timestamp timestamp(6) not null,
+    primary key (id, timestamp)
+) partition by range (timestamp);
+
+create index idx_price_history_item_timestamp on price_history (item_id, timestamp) include (price);
+
+do $$
+declare
+    first_month date := date_trunc('month', coalesce((select min(timestamp) from price_history_legacy), now()));
+    last_month  date := date_trunc('month', now()) + interval '2 months';
+    month       date;
+begin
+    month := first_month;
+    while month <= last_month loop
+        execute format('create table if not exists %I partition of price_history for values from (%L) to (%L)',
+                       'price_history_p' || to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    end loop;
+end $$;
+
+insert into price_history (id, item_id, price, timestamp)
+select id, item_id, price, coalesce(timestamp, now())
+from price_history_legacy
+where price is not null;
+
+drop table price_history_legacy;
+
+create table price_history_hourly (
+    item_id    bigint       not null references tracked_items (id) on delete cascade,
+    bucket     timestamp(0) not null,
+    min_price  bigint       not null,
+    max_price  bigint       not null,
+    last_price bigint       not null,
+    last_at    timestamp(6) not null,
+    primary key (item_id, bucket)
+);
+
+create table price_history_daily (
+    item_id    bigint       not null references tracked_items (id) on delete cascade,
+    bucket     timestamp(0) not null,
+    min_price  bigint       not null,
+    max_price  bigint       not null,
+    last_price bigint       not null,
+    last_at    timestamp(6) not null,
+    primary key (item_id, bucket)
+);
+
+insert into price_history_hourly (item_id, bucket, min_price, max_price, last_price, last_at)
+select item_id, date_trunc('hour', timestamp), min(price), max(price),
+       (array_agg(price order by timestamp desc))[1], max(timestamp)
+from price_history
+group by item_id, date_trunc('hour', timestamp);
+
+insert into price_history_daily (item_id, bucket, min_price, max_price, last_price, last_at)
+select item_id, date_trunc('day', timestamp), min(price), max(price),
+       (array_agg(price order by timestamp desc))[1], max(timestamp)
+from price_history
+group by item_id, date_trunc('day', timestamp);
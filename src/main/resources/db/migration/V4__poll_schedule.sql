@@ -0,0 +1,8 @@
+-- расписание проверок переживает перезапуск: артикулы, проверенные до остановки, не запрашиваются повторно
+create table poll_schedule (
+    marketplace   varchar(255) not null,
+    article       varchar(255) not null,
+    next_check_at timestamp(6) not null,
+    interval_ms   bigint       not null,
+    primary key (marketplace, article)
+);
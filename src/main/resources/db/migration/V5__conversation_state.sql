@@ -0,0 +1,9 @@
+-- шаг диалога с ботом переживает перезапуск; начальное состояние не хранится
+create table conversation_state (
+    chat_id     bigint       not null primary key,
+    state       varchar(32)  not null,
+    marketplace varchar(16),
+    updated_at  timestamp(6) not null
+);
+
+create index idx_conversation_state_updated_at on conversation_state (updated_at);
@@ -0,0 +1,3 @@
+-- /list читает товары чата одним запросом; все выводимые поля лежат в индексе, так что таблица не читается
+create index if not exists idx_tracked_items_chat on tracked_items (chat_id, marketplace desc, id)
+    include (article, title, current_price, basic_price, sale_price);
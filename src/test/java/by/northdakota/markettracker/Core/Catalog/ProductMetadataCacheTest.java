@@ -0,0 +1,105 @@
+package by.northdakota.markettracker.Core.Catalog;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductMetadataCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductMetadataCache cache =
+            new ProductMetadataCache(meterRegistry, 100, Duration.ofMinutes(15), Clock.fixed(NOW, ZoneOffset.UTC));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_shouldLoadOnce_andExposeHitsAndMisses() throws IOException {
+        cache.get(Marketplace.WB, "100500", this::load);
+        ProductMetadata cached = cache.get(Marketplace.WB, "100500", this::load).orElseThrow();
+
+        assertEquals(1, loads.get());
+        assertEquals(NOW, cached.fetchedAt());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "product.metadata").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_shouldKeyByMarketplace() throws IOException {
+        cache.get(Marketplace.WB, "100500", this::load);
+        cache.get(Marketplace.OZON, "100500", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_shouldNotCacheMissingProductsOrFailures() throws IOException {
+        assertTrue(cache.get(Marketplace.WB, "1", clock -> null).isEmpty());
+        assertThrows(IOException.class, () -> cache.get(Marketplace.WB, "1", clock -> {
+            throw new IOException("card.wb.ru недоступен");
+        }));
+
+        assertTrue(cache.get(Marketplace.WB, "1", this::load).isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldCoalesceConcurrentLoads() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> cache.get(Marketplace.OZON, "7", clock -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return load(clock);
+            }));
+            loading.await();
+            Future<?> second = executor.submit(() -> cache.get(Marketplace.OZON, "7", this::load));
+            release.countDown();
+            first.get();
+            second.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void refreshPrices_shouldUpdateOnlyCachedProducts() throws IOException {
+        cache.get(Marketplace.WB, "100500", this::load);
+
+        cache.refreshPrices(Marketplace.WB, "100500", Money.ofKopecks(200), Money.ofKopecks(150), null);
+        cache.refreshPrices(Marketplace.WB, "42", Money.ofKopecks(200), Money.ofKopecks(150), null);
+
+        assertEquals(Money.ofKopecks(150), cache.get(Marketplace.WB, "100500", this::load).orElseThrow().currentPrice());
+        assertTrue(cache.get(Marketplace.WB, "42", clock -> null).isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    private ProductMetadata load(Clock clock) {
+        loads.incrementAndGet();
+        return new ProductMetadata("Футболка", Money.ofKopecks(140), Money.ofKopecks(100), null, clock.instant());
+    }
+}
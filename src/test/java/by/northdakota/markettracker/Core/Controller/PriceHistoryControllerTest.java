@@ -0,0 +1,63 @@
+package by.northdakota.markettracker.Core.Controller;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.History.PriceHistoryService;
+import by.northdakota.markettracker.Core.History.PriceSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryControllerTest {
+
+    @Mock
+    private PriceHistoryService priceHistoryService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new PriceHistoryController(priceHistoryService, "s3cret")).build();
+    }
+
+    @Test
+    void history_shouldRejectRequest_withoutValidToken() throws Exception {
+        mockMvc.perform(get("/api/items/1/history")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/items/1/history").header(HttpHeaders.AUTHORIZATION, "Bearer wrong"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/items/1/chart.png").header(HttpHeaders.AUTHORIZATION, "s3cret"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(priceHistoryService);
+    }
+
+    @Test
+    void history_shouldReturnSeries_withValidToken() throws Exception {
+        TrackedItem item = TrackedItem.builder()
+                .id(1L).article("143314331").chatId(1L).marketplace(Marketplace.WB).title("T-Shirt").build();
+        when(priceHistoryService.history(eq(1L), any(), any())).thenReturn(Optional.of(new PriceSeries(item, "raw", List.of())));
+        when(priceHistoryService.chart(2L, Duration.ofDays(30))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/items/1/history").header(HttpHeaders.AUTHORIZATION, "Bearer s3cret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.article").value("143314331"));
+        mockMvc.perform(get("/api/items/2/chart.png").header(HttpHeaders.AUTHORIZATION, "Bearer s3cret"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,42 @@
+package by.northdakota.markettracker.Core.Entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void parse_shouldReadOzonPriceText() {
+        assertAll(
+                () -> assertEquals(Money.ofRubles(12990), Money.parse("12 990 ₽")),
+                () -> assertEquals(Money.ofKopecks(129950), Money.parse("1 299,50 ₽")),
+                () -> assertEquals(Money.ofKopecks(129950), Money.parse("1299.5")),
+                () -> assertEquals(Money.ofKopecks(1), Money.parse("0,019 ₽"))
+        );
+    }
+
+    @Test
+    void parse_shouldRejectTextWithoutDigits() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("Нет в наличии"));
+    }
+
+    @Test
+    void toString_shouldPrintKopecksOnlyWhenPresent() {
+        assertAll(
+                () -> assertEquals("12990", Money.ofRubles(12990).toString()),
+                () -> assertEquals("1299.50", Money.ofKopecks(129950).toString()),
+                () -> assertEquals("0.05", Money.ofKopecks(5).toString())
+        );
+    }
+
+    @Test
+    void converter_shouldStoreKopecks() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(116100L, converter.convertToDatabaseColumn(Money.ofKopecks(116100)));
+        assertEquals(Money.ofKopecks(116100), converter.convertToEntityAttribute(116100L));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
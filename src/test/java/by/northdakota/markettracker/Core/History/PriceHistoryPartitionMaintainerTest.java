@@ -0,0 +1,42 @@
+package by.northdakota.markettracker.Core.History;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void maintain_shouldCreateUpcomingAndDropExpiredPartitions() {
+        PriceHistoryPartitionMaintainer maintainer =
+                new PriceHistoryPartitionMaintainer(jdbcTemplate, 2, Period.ofMonths(6), Period.ofDays(90));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "price_history_p2026_03", "price_history_p2026_04", "price_history_p2026_05", "price_history_p2026_10"));
+
+        maintainer.maintain(LocalDate.of(2026, 10, 17));
+
+        verify(jdbcTemplate).execute("create table if not exists price_history_p2026_10 partition of price_history "
+                + "for values from ('2026-10-01') to ('2026-11-01')");
+        verify(jdbcTemplate).execute(contains("price_history_p2026_11 partition of"));
+        verify(jdbcTemplate).execute(contains("price_history_p2026_12 partition of"));
+        verify(jdbcTemplate).execute("drop table if exists price_history_p2026_03");
+        verify(jdbcTemplate, never()).execute("drop table if exists price_history_p2026_04");
+        verify(jdbcTemplate).update("delete from price_history_hourly where bucket < ?",
+                Timestamp.valueOf(LocalDate.of(2026, 7, 19).atStartOfDay()));
+    }
+}
@@ -0,0 +1,141 @@
+package by.northdakota.markettracker.Core.History;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.RollupGranularity;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryServiceTest {
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+    @Mock
+    private TrackedItemRepository trackedItemRepository;
+    @Spy
+    private PriceChartRenderer chartRenderer;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+    private PriceHistoryService service;
+    private final TrackedItem item = TrackedItem.builder()
+            .id(1L).article("143314331").chatId(1L).marketplace(Marketplace.WB).title("T-Shirt").build();
+
+    @BeforeEach
+    void setUp() {
+        service = new PriceHistoryService(priceHistoryRepository, trackedItemRepository, chartRenderer,
+                10, Duration.ofDays(2), Duration.ofDays(60), Period.ofMonths(6), Period.ofDays(90),
+                100, Duration.ofHours(1), Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void history_shouldPickSourceByRange() {
+        when(trackedItemRepository.findById(1L)).thenReturn(Optional.of(item));
+        LocalDateTime to = NOW;
+
+        assertEquals("raw", service.history(1L, to.minusDays(1), to).orElseThrow().source());
+        assertEquals("hourly", service.history(1L, to.minusDays(30), to).orElseThrow().source());
+        assertEquals("daily", service.history(1L, to.minusDays(365), to).orElseThrow().source());
+
+        verify(priceHistoryRepository).findPoints(1L, to.minusDays(1), to);
+        verify(priceHistoryRepository).findRollups(1L, RollupGranularity.HOURLY, to.minusDays(30), to);
+        verify(priceHistoryRepository).findRollups(1L, RollupGranularity.DAILY, to.minusDays(365), to);
+    }
+
+    @Test
+    void history_shouldUseDaily_whenRawRetentionDoesNotCoverPastWindow() {
+        when(trackedItemRepository.findById(1L)).thenReturn(Optional.of(item));
+        LocalDateTime to = NOW.minusMonths(7);
+
+        assertEquals("daily", service.history(1L, to.minusDays(1), to).orElseThrow().source());
+        verify(priceHistoryRepository).findRollups(1L, RollupGranularity.DAILY, to.minusDays(1), to);
+    }
+
+    @Test
+    void history_shouldUseDaily_whenHourlyRetentionDoesNotCoverPastWindow() {
+        when(trackedItemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        assertEquals("daily", service.history(1L, NOW.minusDays(120), NOW.minusDays(100)).orElseThrow().source());
+        assertEquals("daily", service.history(1L, NOW.minusYears(1), NOW.minusYears(1).plusDays(1)).orElseThrow().source());
+        verify(priceHistoryRepository, never()).findPoints(any(), any(), any());
+    }
+
+    @Test
+    void history_shouldKeepRaw_forRecentPastWindowWithinRetention() {
+        when(trackedItemRepository.findById(1L)).thenReturn(Optional.of(item));
+        LocalDateTime to = NOW.minusMonths(5);
+
+        assertEquals("raw", service.history(1L, to.minusDays(1), to).orElseThrow().source());
+        assertEquals("hourly", service.history(1L, NOW.minusDays(80), NOW.minusDays(50)).orElseThrow().source());
+    }
+
+    @Test
+    void history_shouldDownsampleKeepingExtremes() {
+        when(trackedItemRepository.findById(1L)).thenReturn(Optional.of(item));
+        LocalDateTime from = LocalDateTime.of(2026, 10, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        List<PricePoint> raw = IntStream.range(0, 1440)
+                .mapToObj(i -> PricePoint.of(from.plusMinutes(i), Money.ofKopecks(i == 700 ? 1 : 10_000 + i)))
+                .toList();
+        when(priceHistoryRepository.findPoints(1L, from, to)).thenReturn(raw);
+
+        List<PricePoint> points = service.history(1L, from, to).orElseThrow().points();
+
+        assertEquals(10, points.size());
+        assertEquals(Money.ofKopecks(1), points.stream().map(PricePoint::min).min(Money::compareTo).orElseThrow());
+        assertEquals(Money.ofKopecks(11_439), points.get(9).last());
+    }
+
+    @Test
+    void chart_shouldRenderOncePerLastUpdate() {
+        when(trackedItemRepository.findByChatIdAndArticleAndMarketplace(1L, "143314331", Marketplace.WB)).thenReturn(Optional.of(item));
+        LocalDateTime lastUpdate = LocalDateTime.now().minusHours(1);
+        when(priceHistoryRepository.findLastTimestamp(1L))
+                .thenReturn(Optional.of(lastUpdate))
+                .thenReturn(Optional.of(lastUpdate))
+                .thenReturn(Optional.of(lastUpdate.plusMinutes(30)));
+        when(priceHistoryRepository.findRollups(eq(1L), eq(RollupGranularity.HOURLY), any(), any()))
+                .thenReturn(List.of(PricePoint.of(lastUpdate, Money.ofKopecks(12_990))));
+
+        byte[] first = service.chart(1L, Marketplace.WB, "143314331", Duration.ofDays(30)).orElseThrow();
+        byte[] second = service.chart(1L, Marketplace.WB, "143314331", Duration.ofDays(30)).orElseThrow();
+        service.chart(1L, Marketplace.WB, "143314331", Duration.ofDays(30)).orElseThrow();
+
+        assertSame(first, second);
+        assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, Arrays.copyOf(first, 4));
+        verify(chartRenderer, times(2)).render(anyString(), anyList());
+    }
+
+    @Test
+    void chart_shouldBeEmpty_whenItemNotTracked() {
+        when(trackedItemRepository.findByChatIdAndArticleAndMarketplace(1L, "143314331", Marketplace.WB)).thenReturn(Optional.empty());
+
+        assertTrue(service.chart(1L, Marketplace.WB, "143314331", Duration.ofDays(30)).isEmpty());
+        verifyNoInteractions(priceHistoryRepository, chartRenderer);
+    }
+}
@@ -0,0 +1,152 @@
+package by.northdakota.markettracker.Core.Http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketplaceHttpClientTest {
+
+    private HttpServer server;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestURI() + " " + exchange.getRequestHeaders().getFirst("If-None-Match")
+                    + " " + exchange.getRequestHeaders().getFirst("User-Agent"));
+            if (exchange.getRequestURI().getPath().equals("/slow")) {
+                sleep(500);
+            }
+            byte[] body = gzip("{\"products\":[]}");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void get_shouldSendHeadersAndDecompressBody() throws IOException {
+        MarketplaceHttpClient client = new MarketplaceHttpClient(proxies(), Duration.ofSeconds(2), Duration.ofSeconds(2));
+
+        MarketplaceResponse response = client.get(uri("/cards?nm=1"), Map.of("If-None-Match", "\"v0\""));
+
+        assertEquals(200, response.status());
+        assertEquals("\"v1\"", response.header("ETag"));
+        assertEquals("{\"products\":[]}", new String(response.body(), StandardCharsets.UTF_8));
+        assertEquals(List.of("/cards?nm=1 \"v0\" " + MarketplaceHttpClient.USER_AGENT), requests);
+    }
+
+    @Test
+    void get_shouldRouteThroughConfiguredProxy() throws IOException {
+        MarketplaceHttpClient client = new MarketplaceHttpClient(proxies("127.0.0.1:" + server.getAddress().getPort()),
+                Duration.ofSeconds(2), Duration.ofSeconds(2));
+
+        MarketplaceResponse response = client.get(URI.create("http://card.wb.invalid/cards?nm=2"), Map.of());
+
+        assertTrue(response.isSuccessful());
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).startsWith("http://card.wb.invalid/cards?nm=2"));
+    }
+
+    @Test
+    void get_shouldFail_whenReadTimeoutExceeded() {
+        MarketplaceHttpClient client = new MarketplaceHttpClient(proxies(), Duration.ofSeconds(2), Duration.ofMillis(100));
+
+        assertThrows(HttpTimeoutException.class, () -> client.get(uri("/slow"), Map.of()));
+    }
+
+    @Test
+    void get_shouldMoveTrafficAwayFromFailingProxy() throws IOException {
+        HttpServer badProxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        List<String> badRequests = new CopyOnWriteArrayList<>();
+        badProxy.createContext("/", exchange -> {
+            badRequests.add(exchange.getRequestURI().toString());
+            exchange.sendResponseHeaders(502, -1);
+            exchange.close();
+        });
+        badProxy.start();
+        try {
+            MarketplaceHttpClient client = new MarketplaceHttpClient(
+                    proxies("127.0.0.1:" + server.getAddress().getPort(), "127.0.0.1:" + badProxy.getAddress().getPort()),
+                    Duration.ofSeconds(2), Duration.ofSeconds(2));
+
+            int successful = 0;
+            for (int i = 0; i < 40; i++) {
+                if (client.get(URI.create("http://card.wb.invalid/cards?nm=" + i), Map.of()).isSuccessful()) {
+                    successful++;
+                }
+            }
+
+            // плохой прокси получает не больше порога ошибок, дальше сидит на карантине
+            assertTrue(badRequests.size() <= 2, "запросов через плохой прокси: " + badRequests.size());
+            assertEquals(40 - badRequests.size(), successful);
+        } finally {
+            badProxy.stop(0);
+        }
+    }
+
+    @Test
+    void get_shouldFail_whenEveryProxyQuarantined() throws IOException {
+        ProxyPool pool = proxies("127.0.0.1:1");
+        MarketplaceHttpClient client = new MarketplaceHttpClient(pool, Duration.ofMillis(200), Duration.ofSeconds(1));
+
+        assertThrows(IOException.class, () -> client.get(uri("/"), Map.of()));
+        assertThrows(IOException.class, () -> client.get(uri("/"), Map.of()));
+        IOException quarantined = assertThrows(IOException.class, () -> client.get(uri("/"), Map.of()));
+
+        assertTrue(quarantined.getMessage().contains("карантин"));
+        assertTrue(requests.isEmpty());
+    }
+
+    static ProxyPool proxies(String... proxies) {
+        return new ProxyPool(List.of(proxies), 4, 2, Duration.ofMinutes(1), Duration.ofMinutes(5),
+                Duration.ofMillis(100), Duration.ofMillis(200), new SimpleMeterRegistry());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
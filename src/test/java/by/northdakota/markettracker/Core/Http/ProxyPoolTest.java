@@ -0,0 +1,117 @@
+package by.northdakota.markettracker.Core.Http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProxyPoolTest {
+
+    private static final ProxyEndpoint FAST = ProxyEndpoint.parse("10.0.0.1:3128");
+    private static final ProxyEndpoint SLOW = ProxyEndpoint.parse("10.0.0.2:3128");
+
+    private ProxyPool pool(List<String> proxies, int maxConcurrency, Duration quarantine) {
+        return new ProxyPool(proxies, maxConcurrency, 2, quarantine, Duration.ofMinutes(5),
+                Duration.ofMillis(50), Duration.ofMillis(200), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void acquire_shouldPreferFasterProxy() throws IOException {
+        ProxyPool pool = pool(List.of(FAST.toString(), SLOW.toString()), 100, Duration.ofMinutes(1));
+        for (int i = 0; i < 20; i++) {
+            pool.record(FAST, true, Duration.ofMillis(50));
+            pool.record(SLOW, true, Duration.ofMillis(1000));
+        }
+
+        Map<ProxyEndpoint, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            try (ProxyLease lease = pool.acquire()) {
+                picks.merge(lease.proxy(), 1, Integer::sum);
+            }
+        }
+
+        assertTrue(picks.get(FAST) > 800, "выборы: " + picks);
+        assertTrue(picks.getOrDefault(SLOW, 0) > 0, "медленный прокси тоже должен получать трафик: " + picks);
+    }
+
+    @Test
+    void record_shouldLowerWeight_onErrors() {
+        ProxyPool pool = pool(List.of(FAST.toString(), SLOW.toString()), 1, Duration.ofMinutes(1));
+
+        pool.record(SLOW, false, Duration.ofMillis(500));
+        pool.record(SLOW, true, Duration.ofMillis(500));
+
+        assertTrue(pool.weights().get(SLOW) < pool.weights().get(FAST));
+        assertTrue(pool.isAvailable(SLOW));
+    }
+
+    @Test
+    void acquire_shouldRespectPerProxyConcurrency() throws IOException {
+        ProxyPool pool = pool(List.of(FAST.toString(), SLOW.toString()), 1, Duration.ofMinutes(1));
+
+        try (ProxyLease first = pool.acquire(); ProxyLease second = pool.acquire()) {
+            assertNotEquals(first.proxy(), second.proxy());
+            assertThrows(IOException.class, pool::acquire);
+        }
+        pool.acquire().close();
+    }
+
+    @Test
+    void record_shouldQuarantineAfterConsecutiveFailures() throws IOException {
+        ProxyPool pool = pool(List.of(FAST.toString(), SLOW.toString()), 10, Duration.ofMinutes(1));
+
+        pool.record(SLOW, false, Duration.ZERO);
+        assertTrue(pool.isAvailable(SLOW));
+        pool.record(SLOW, false, Duration.ZERO);
+        assertFalse(pool.isAvailable(SLOW));
+
+        for (int i = 0; i < 50; i++) {
+            try (ProxyLease lease = pool.acquire()) {
+                assertEquals(FAST, lease.proxy());
+            }
+        }
+    }
+
+    @Test
+    void probeQuarantined_shouldReturnProxy_onlyWhenItAcceptsConnections() throws Exception {
+        try (ServerSocket standIn = new ServerSocket()) {
+            standIn.bind(new InetSocketAddress("127.0.0.1", 0));
+            int port = standIn.getLocalPort();
+            ProxyEndpoint proxy = ProxyEndpoint.parse("127.0.0.1:" + port);
+            ProxyPool pool = pool(List.of(proxy.toString()), 1, Duration.ofMillis(1));
+
+            pool.record(proxy, false, Duration.ZERO);
+            pool.record(proxy, false, Duration.ZERO);
+            assertThrows(IOException.class, pool::acquire);
+
+            Thread.sleep(5);
+            pool.probeQuarantined();
+            assertTrue(pool.isAvailable(proxy));
+
+            // после карантина одной ошибки достаточно, чтобы прокси снова ушёл на проверку
+            pool.record(proxy, false, Duration.ZERO);
+            assertFalse(pool.isAvailable(proxy));
+            standIn.close();
+            Thread.sleep(5);
+            pool.probeQuarantined();
+            assertFalse(pool.isAvailable(proxy));
+        }
+    }
+
+    @Test
+    void proxies_shouldIgnoreBlankEntries() {
+        ProxyPool pool = pool(List.of("", " "), 1, Duration.ofMinutes(1));
+
+        assertTrue(pool.isEmpty());
+        assertTrue(pool.choose().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ProxyEndpoint.parse("proxy.local"));
+    }
+}
@@ -0,0 +1,141 @@
+package by.northdakota.markettracker.Core.Parser;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonDataProvider;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonHttpDataProvider;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonParser;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonProductData;
+import by.northdakota.markettracker.Core.Parser.Ozon.PooledWebDriver;
+import by.northdakota.markettracker.Core.Parser.Ozon.WebDriverPool;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OzonParserTest {
+
+    private final OzonDataProvider dataProvider = mock(OzonDataProvider.class);
+    private final OzonHttpDataProvider httpDataProvider = mock(OzonHttpDataProvider.class);
+    private final OzonParser ozonParser = new OzonParser(dataProvider, httpDataProvider);
+
+    @Test
+    void parseDocument_shouldReadPricesFromWidgetState() throws IOException {
+        Optional<OzonProductData> data = ozonParser.parseDocument(fixture("product-widget-state.html"));
+
+        assertTrue(data.isPresent());
+        assertEquals("Футболка-поло мужская хлопок", data.get().name());
+        assertEquals(List.of(Money.ofRubles(1049), Money.ofRubles(1162), Money.ofRubles(3616)),
+                data.get().priceList());
+    }
+
+    @Test
+    void parseDocument_shouldReadPricesFromMarkup_whenNoWidgetState() throws IOException {
+        Optional<OzonProductData> data = ozonParser.parseDocument(fixture("product-dom-only.html"));
+
+        assertTrue(data.isPresent());
+        assertEquals("Кружка керамическая 350 мл", data.get().name());
+        assertEquals(List.of(Money.ofRubles(499), Money.ofRubles(537), Money.ofKopecks(129050)),
+                data.get().priceList());
+    }
+
+    @Test
+    void parseDocument_shouldReadPricesFromMarkup_whenWidgetStateIsBroken() throws IOException {
+        Optional<OzonProductData> data = ozonParser.parseDocument(fixture("product-broken-state.html"));
+
+        assertTrue(data.isPresent());
+        assertEquals(Money.ofRubles(2390), data.get().priceList().get(1));
+    }
+
+    @Test
+    void parseDocument_shouldReturnEmpty_whenAntiBotPage() throws IOException {
+        assertTrue(ozonParser.parseDocument(fixture("product-antibot.html")).isEmpty());
+    }
+
+    @Test
+    void getProductData_shouldNotUseSelenium_whenHtmlParsed() throws IOException {
+        when(httpDataProvider.getProductPage("123456")).thenReturn(fixture("product-widget-state.html"));
+
+        OzonProductData data = ozonParser.getProductData("123456");
+
+        assertEquals(Money.ofRubles(1162), data.priceList().get(1));
+        verifyNoInteractions(dataProvider);
+    }
+
+    @Test
+    void getProductData_shouldFallBackToSelenium_whenHtmlNotParsed() throws IOException {
+        OzonProductData fromSelenium = new OzonProductData("Товар", List.of(Money.ofRubles(1), Money.ofRubles(2), Money.ofRubles(10)));
+        when(httpDataProvider.getProductPage("123456")).thenReturn(fixture("product-antibot.html"));
+        when(dataProvider.readProductPage(eq("123456"), any())).thenReturn(Optional.of(fromSelenium));
+
+        assertSame(fromSelenium, ozonParser.getProductData("123456"));
+    }
+
+    @Test
+    void getProductData_shouldFallBackToSelenium_whenRequestFails() throws IOException {
+        OzonProductData fromSelenium = new OzonProductData("Товар", List.of(Money.ofRubles(1), Money.ofRubles(2), Money.ofRubles(10)));
+        when(httpDataProvider.getProductPage("123456")).thenThrow(new IOException("HTTP 403"));
+        when(dataProvider.readProductPage(eq("123456"), any())).thenReturn(Optional.of(fromSelenium));
+
+        assertSame(fromSelenium, ozonParser.getProductData("123456"));
+    }
+
+    @Test
+    void getProductData_shouldReturnEmptyData_whenSeleniumTimesOut() throws IOException {
+        when(httpDataProvider.getProductPage("123456")).thenThrow(new IOException("HTTP 403"));
+        when(dataProvider.readProductPage(eq("123456"), any())).thenReturn(Optional.empty());
+
+        OzonProductData data = ozonParser.getProductData("123456");
+
+        assertNull(data.name());
+        assertTrue(data.priceList().isEmpty());
+    }
+
+    @Test
+    void readProductPage_shouldKeepDriverAndReturnEmpty_whenPageTimesOut() {
+        WebDriverPool pool = mock(WebDriverPool.class);
+        PooledWebDriver pooled = mock(PooledWebDriver.class);
+        WebDriver driver = mock(WebDriver.class);
+        when(pool.borrow()).thenReturn(pooled);
+        when(pooled.getDriver()).thenReturn(driver);
+        doThrow(new TimeoutException("page load")).when(driver).get(anyString());
+
+        Optional<String> result = new OzonDataProvider(pool).readProductPage("123456", d -> "never");
+
+        assertTrue(result.isEmpty());
+        verify(pool).release(pooled, false);
+    }
+
+    @Test
+    void readProductPage_shouldRecycleDriver_whenSessionFails() {
+        WebDriverPool pool = mock(WebDriverPool.class);
+        PooledWebDriver pooled = mock(PooledWebDriver.class);
+        WebDriver driver = mock(WebDriver.class);
+        when(pool.borrow()).thenReturn(pooled);
+        when(pooled.getDriver()).thenReturn(driver);
+        doThrow(new WebDriverException("session deleted")).when(driver).get(anyString());
+
+        assertThrows(WebDriverException.class,
+                () -> new OzonDataProvider(pool).readProductPage("123456", d -> "never"));
+
+        verify(pool).release(pooled, true);
+    }
+
+    private Document fixture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/ozon/" + name)) {
+            return Jsoup.parse(in, "UTF-8", "https://www.ozon.ru/");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package by.northdakota.markettracker.Core.Parser;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Http.MarketplaceHttpClient;
+import by.northdakota.markettracker.Core.Parser.WB.WbDataProvider;
+import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.*;
+
+class WbDataProviderTest {
+
+    private static final String BODY = """
+            {"products":[{"id":111111,"name":"T-Shirt","sizes":[{"price":{"basic":20000,"product":10000}}]}]}""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WbParser wbParser = spy(new WbParser());
+
+    @Test
+    void getProductsData_shouldSplitArticlesIntoBatches() throws IOException {
+        WbDataProvider provider = provider(2);
+
+        doReturn(cards(111111, 222222)).when(provider).getProductCards(List.of("111111", "222222"));
+        doReturn(cards(333333)).when(provider).getProductCards(List.of("333333"));
+
+        Map<String, WbProductCard> result = provider.getProductsData(List.of("111111", "222222", "333333", "111111"));
+
+        assertEquals(3, result.size());
+        assertEquals(333333, result.get("333333").id());
+        verify(provider).getProductCards(List.of("111111", "222222"));
+        verify(provider).getProductCards(List.of("333333"));
+    }
+
+    @Test
+    void getProductsData_shouldOmitArticlesMissingInResponse() throws IOException {
+        WbDataProvider provider = provider(10);
+
+        doReturn(cards(111111)).when(provider).getProductCards(List.of("111111", "999999"));
+
+        Map<String, WbProductCard> result = provider.getProductsData(List.of("111111", "999999"));
+
+        assertTrue(result.containsKey("111111"));
+        assertFalse(result.containsKey("999999"));
+    }
+
+    @Test
+    void getProductCards_shouldSendValidatorsAndReuseCard_whenNotModified() throws IOException {
+        WbDataProvider provider = provider(10);
+        doReturn(response(200, "\"v1\"", BODY)).when(provider).fetch("111111", null, null);
+        doReturn(response(304, "\"v1\"", "")).when(provider).fetch("111111", "\"v1\"", null);
+
+        WbProductCard first = provider.getProductCards(List.of("111111")).get("111111");
+        WbProductCard second = provider.getProductCards(List.of("111111")).get("111111");
+
+        assertSame(first, second);
+        assertEquals(Money.ofKopecks(10000), second.productPrice());
+        verify(wbParser, times(1)).parseCards(any(), any());
+        assertEquals(1, meterRegistry.counter("wb.cards.fetch", "result", "not_modified").count());
+    }
+
+    @Test
+    void getProductCards_shouldReuseCard_whenArticleComesInAnotherBatch() throws IOException {
+        WbDataProvider provider = provider(10);
+        doReturn(response(200, null, BODY)).when(provider).fetch(eq("111111;333333"), isNull(), isNull());
+        doReturn(response(200, null, BODY.replace("]}]}", "]},"
+                + "{\"id\":222222,\"name\":\"Cap\",\"sizes\":[{\"price\":{\"basic\":5000,\"product\":4000}}]}]}")))
+                .when(provider).fetch(eq("111111;222222"), isNull(), isNull());
+
+        WbProductCard first = provider.getProductCards(List.of("111111", "333333")).get("111111");
+        Map<String, WbProductCard> cards = provider.getProductCards(List.of("111111", "222222"));
+
+        assertSame(first, cards.get("111111"));
+        assertEquals(Money.ofKopecks(4000), cards.get("222222").productPrice());
+        verify(provider, never()).fetch(anyString(), notNull(), any());
+        assertEquals(1, meterRegistry.counter("wb.cards.fetch", "result", "unchanged").count());
+        assertEquals(2, meterRegistry.counter("wb.cards.fetch", "result", "changed").count());
+    }
+
+    @Test
+    void getProductCards_shouldKeepFreshName_whenOnlyNameChanges() throws IOException {
+        WbDataProvider provider = provider(10);
+        doReturn(response(200, null, BODY), response(200, null, BODY.replace("T-Shirt", "Polo")))
+                .when(provider).fetch(eq("111111"), isNull(), isNull());
+
+        provider.getProductCards(List.of("111111"));
+        WbProductCard card = provider.getProductCards(List.of("111111")).get("111111");
+
+        assertEquals("Polo", card.name());
+        assertEquals(Money.ofKopecks(10000), card.productPrice());
+        assertEquals(0, meterRegistry.counter("wb.cards.fetch", "result", "unchanged").count());
+    }
+
+    @Test
+    void getProductCards_shouldReplaceCard_whenPriceChanges() throws IOException {
+        WbDataProvider provider = provider(10);
+        doReturn(response(200, null, BODY), response(200, null, BODY.replace("10000", "9000")))
+                .when(provider).fetch(eq("111111"), isNull(), isNull());
+
+        provider.getProductCards(List.of("111111"));
+        Map<String, WbProductCard> cards = provider.getProductCards(List.of("111111"));
+
+        assertEquals(Money.ofKopecks(9000), cards.get("111111").productPrice());
+        assertEquals(2, meterRegistry.counter("wb.cards.fetch", "result", "changed").count());
+    }
+
+    private WbDataProvider provider(int batchSize) {
+        WbDataProvider provider = spy(new WbDataProvider(wbParser, mock(MarketplaceHttpClient.class), meterRegistry, 100, Duration.ofHours(1)));
+        ReflectionTestUtils.setField(provider, "batchSize", batchSize);
+        return provider;
+    }
+
+    private WbDataProvider.WbResponse response(int status, String etag, String body) {
+        return new WbDataProvider.WbResponse(status, etag, null, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, WbProductCard> cards(long... ids) {
+        Map<String, WbProductCard> cards = new HashMap<>();
+        for (long id : ids) {
+            cards.put(String.valueOf(id), new WbProductCard(id, "item" + id, Money.ofKopecks(200), Money.ofKopecks(100)));
+        }
+        return cards;
+    }
+}
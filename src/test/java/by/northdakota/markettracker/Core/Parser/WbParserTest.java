@@ -1,12 +1,17 @@
 package by.northdakota.markettracker.Core.Parser;
 
+import by.northdakota.markettracker.Core.Entity.Money;
 import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class WbParserTest {
 
@@ -57,4 +62,86 @@ class WbParserTest {
         assertEquals(expected, price);
     }
 
-}
\ No newline at end of file
+    @Test
+    void parseCards_shouldReadOnlyPriceRelevantFields() throws IOException {
+        String body = """
+                {
+                 "state": 0,
+                 "params": {"version": 1, "curr": "rub"},
+                 "products":[
+                    {
+                        "id": 14331433,
+                        "root": 1,
+                        "name":"футболка-поло",
+                        "colors":[{"name":"белый","id":16777215}],
+                        "sizes":[
+                            {
+                                "name":"M",
+                                "stocks":[{"wh":507,"qty":3}],
+                                "price":{
+                                    "basic": 361600,
+                                    "product": 116100,
+                                    "logistics": 3000,
+                                    "return": 0
+                                }
+                            },
+                            {
+                                "name":"L",
+                                "price":{"basic": 1, "product": 1}
+                            }
+                        ]
+                    },
+                    {
+                        "id": 14331434,
+                        "sizes":[{"price":{"basic": 5000, "product": 4500}}],
+                        "name":"носки"
+                    },
+                    {
+                        "id": 14331435,
+                        "name":"нет в наличии",
+                        "sizes":[{"name":"0","stocks":[]}]
+                    }
+                 ]
+                }
+                """;
+
+        Map<String, WbProductCard> cards = wbParser.parseCards(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertAll(
+                () -> assertEquals(2, cards.size()),
+                () -> assertEquals(new WbProductCard(14331433, "футболка-поло", Money.ofKopecks(361600), Money.ofKopecks(116100)), cards.get("14331433")),
+                () -> assertEquals(new WbProductCard(14331434, "носки", Money.ofKopecks(5000), Money.ofKopecks(4500)), cards.get("14331434")),
+                () -> assertFalse(cards.containsKey("14331435"))
+        );
+    }
+
+    @Test
+    void parseCards_shouldReturnKnownCard_whenPricesAndNameMatch() throws IOException {
+        WbProductCard known = new WbProductCard(14331434, "носки", Money.ofKopecks(5000), Money.ofKopecks(4500));
+        String body = """
+                {"products":[
+                    {"id":14331434,"name":"носки","sizes":[{"price":{"basic":5000,"product":4500}}]},
+                    {"id":14331435,"name":"шарф","sizes":[{"price":{"basic":9000,"product":8000}}]}
+                ]}
+                """;
+        Map<String, WbProductCard> previous = Map.of(
+                "14331434", known,
+                "14331435", new WbProductCard(14331435, "шарф", Money.ofKopecks(9000), Money.ofKopecks(8500)));
+
+        Map<String, WbProductCard> cards = wbParser.parseCards(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), previous::get);
+
+        assertSame(known, cards.get("14331434"));
+        assertEquals(Money.ofKopecks(8000), cards.get("14331435").productPrice());
+    }
+
+    @Test
+    void parseCards_shouldReturnEmpty_whenNoProducts() throws IOException {
+        Map<String, WbProductCard> cards = wbParser.parseCards(
+                new ByteArrayInputStream("{\"state\":0,\"products\":[]}".getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(cards.isEmpty());
+    }
+
+}
@@ -0,0 +1,141 @@
+package by.northdakota.markettracker.Core.Parser;
+
+import by.northdakota.markettracker.Core.Http.ProxyEndpoint;
+import by.northdakota.markettracker.Core.Http.ProxyPool;
+import by.northdakota.markettracker.Core.Parser.Ozon.PooledWebDriver;
+import by.northdakota.markettracker.Core.Parser.Ozon.WebDriverPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebDriverPoolTest {
+
+    private final List<WebDriver> created = new ArrayList<>();
+    private final List<ProxyEndpoint> proxiesUsed = new ArrayList<>();
+    private ProxyPool proxyPool;
+
+    private WebDriverPool pool(int size, int maxPages) {
+        return pool(size, maxPages, List.of());
+    }
+
+    private WebDriverPool pool(int size, int maxPages, List<String> proxies) {
+        return pool(size, 0, maxPages, proxies);
+    }
+
+    private WebDriverPool pool(int size, int minIdle, int maxPages, List<String> proxies) {
+        proxyPool = new ProxyPool(proxies, 4, 1, Duration.ofMinutes(1), Duration.ofMinutes(5),
+                Duration.ofMillis(100), Duration.ofMillis(200), new SimpleMeterRegistry());
+        return new WebDriverPool(proxyPool, size, minIdle, maxPages, Duration.ofMillis(100)) {
+            @Override
+            protected WebDriver createDriver(ProxyEndpoint proxy) {
+                WebDriver driver = mock(WebDriver.class);
+                created.add(driver);
+                proxiesUsed.add(proxy);
+                return driver;
+            }
+        };
+    }
+
+    @Test
+    void borrow_shouldReuseWarmSession() {
+        WebDriverPool pool = pool(1, 10);
+
+        PooledWebDriver first = pool.borrow();
+        pool.release(first, false);
+        PooledWebDriver second = pool.borrow();
+
+        assertSame(first, second);
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    void release_shouldRecycleSession_afterMaxPagesOrError() {
+        WebDriverPool pool = pool(1, 2);
+
+        PooledWebDriver pooled = pool.borrow();
+        pool.release(pooled, false);
+        pool.release(pool.borrow(), false);
+        verify(pooled.getDriver()).quit();
+
+        PooledWebDriver broken = pool.borrow();
+        pool.release(broken, true);
+        verify(broken.getDriver()).quit();
+
+        PooledWebDriver fresh = pool.borrow();
+        assertEquals(3, created.size());
+        assertSame(created.get(2), fresh.getDriver());
+    }
+
+    @Test
+    void borrow_shouldReplaceSession_whenHealthCheckFails() {
+        WebDriverPool pool = pool(1, 10);
+
+        PooledWebDriver dead = pool.borrow();
+        pool.release(dead, false);
+        when(dead.getDriver().getWindowHandle()).thenThrow(new WebDriverException("session deleted"));
+
+        PooledWebDriver fresh = pool.borrow();
+
+        assertNotSame(dead, fresh);
+        verify(dead.getDriver()).quit();
+    }
+
+    @Test
+    void warmUp_shouldOpenSessionsBeforeFirstBorrow() {
+        WebDriverPool pool = pool(3, 2, 10, List.of());
+
+        pool.warmUp();
+        pool.warmUp();
+        PooledWebDriver first = pool.borrow();
+        PooledWebDriver second = pool.borrow();
+
+        assertEquals(2, created.size());
+        assertNotSame(first, second);
+        assertEquals(0, first.getPages());
+    }
+
+    @Test
+    void warmUp_shouldNotFail_whenSeleniumUnavailable() {
+        WebDriverPool pool = new WebDriverPool(new ProxyPool(List.of(), 4, 1, Duration.ofMinutes(1),
+                Duration.ofMinutes(5), Duration.ofMillis(100), Duration.ofMillis(200), new SimpleMeterRegistry()),
+                2, 2, 10, Duration.ofMillis(100)) {
+            @Override
+            protected WebDriver createDriver(ProxyEndpoint proxy) {
+                throw new WebDriverException("connection refused");
+            }
+        };
+
+        assertDoesNotThrow(pool::warmUp);
+        assertThrows(WebDriverException.class, pool::borrow);
+    }
+
+    @Test
+    void borrow_shouldFail_whenPoolExhausted() {
+        WebDriverPool pool = pool(1, 10);
+        pool.borrow();
+
+        assertThrows(IllegalStateException.class, pool::borrow);
+    }
+
+    @Test
+    void borrow_shouldBindSessionToProxy_andDropItWhenProxyQuarantined() {
+        WebDriverPool pool = pool(1, 10, List.of("127.0.0.1:3128"));
+        ProxyEndpoint proxy = ProxyEndpoint.parse("127.0.0.1:3128");
+
+        PooledWebDriver first = pool.borrow();
+        assertEquals(proxy, first.getProxy());
+        pool.release(first, true);
+
+        assertFalse(proxyPool.isAvailable(proxy));
+        assertThrows(IllegalStateException.class, pool::borrow);
+        assertEquals(List.of(proxy), proxiesUsed);
+    }
+}
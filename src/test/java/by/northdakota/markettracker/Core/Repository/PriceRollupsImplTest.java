@@ -0,0 +1,61 @@
+package by.northdakota.markettracker.Core.Repository;
+
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceRollupsImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aggregate_shouldFoldPointsOfSameBucket() {
+        TrackedItem item = TrackedItem.builder().id(1L).build();
+        LocalDateTime hour = LocalDateTime.of(2026, 10, 17, 12, 0);
+        List<PriceHistory> history = List.of(
+                point(item, 500, hour.plusMinutes(40)),
+                point(item, 300, hour.plusMinutes(10)),
+                point(item, 400, hour.plusHours(1)));
+
+        List<PriceRollupsImpl.Rollup> hourly =
+                List.copyOf(PriceRollupsImpl.aggregate(history, RollupGranularity.HOURLY));
+        List<PriceRollupsImpl.Rollup> daily =
+                List.copyOf(PriceRollupsImpl.aggregate(history, RollupGranularity.DAILY));
+
+        assertEquals(2, hourly.size());
+        assertEquals(new PriceRollupsImpl.Rollup(1L, hour, 300, 500, 500, hour.plusMinutes(40)), hourly.get(0));
+        assertEquals(1, daily.size());
+        assertEquals(new PriceRollupsImpl.Rollup(1L, hour.toLocalDate().atStartOfDay(), 300, 500, 400,
+                hour.plusHours(1)), daily.get(0));
+    }
+
+    @Test
+    void recordRollups_shouldUpsertBothGranularities() {
+        PriceRollupsImpl rollups = new PriceRollupsImpl(jdbcTemplate);
+
+        rollups.recordRollups(List.of(point(TrackedItem.builder().id(1L).build(), 100, LocalDateTime.now())));
+        rollups.recordRollups(List.of());
+
+        verify(jdbcTemplate).batchUpdate(contains("insert into price_history_hourly"), anyList());
+        verify(jdbcTemplate).batchUpdate(contains("insert into price_history_daily"), anyList());
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    private PriceHistory point(TrackedItem item, long kopecks, LocalDateTime timestamp) {
+        return new PriceHistory(null, item, Money.ofKopecks(kopecks), timestamp);
+    }
+}
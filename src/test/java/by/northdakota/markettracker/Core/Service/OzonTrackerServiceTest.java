@@ -0,0 +1,259 @@
+package by.northdakota.markettracker.Core.Service;
+
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
+import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonParser;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonProductData;
+import by.northdakota.markettracker.Core.Repository.PollScheduleRepository;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import by.northdakota.markettracker.Core.Sweep.SweepOutcome;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OzonTrackerServiceTest {
+
+    @Mock
+    private TrackedItemRepository trackedItemRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OzonParser ozonParser;
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+    @Mock
+    private PriceUpdateWriter priceUpdateWriter;
+    @Spy
+    private PriceStateTable priceStateTable = new PriceStateTable();
+    @Spy
+    private SweepEngine sweepEngine = new SweepEngine(4, 1, Duration.ofMinutes(1), 2);
+    @Spy
+    private PollScheduler pollScheduler =
+            new PollScheduler(mock(PollScheduleRepository.class), Clock.systemUTC(),
+                    Duration.ofMinutes(10), Duration.ofHours(6), Duration.ZERO, 0, Duration.ofMinutes(25), 500);
+    @Spy
+    private ProductMetadataCache productMetadataCache =
+            new ProductMetadataCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(15));
+
+    @InjectMocks
+    private OzonTrackerService ozonTrackerService;
+
+    private final String article = "200600";
+    private final Long chatId = 1433L;
+    private final String productName = "Кружка";
+
+    @Test
+    void startTracking_shouldSaveItemHistoryAndState_whenProductFound() throws IOException {
+        when(ozonParser.getProductData(article)).thenReturn(product(450, 500, 700));
+        when(trackedItemRepository.save(any(TrackedItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<TrackedItemDto> result = ozonTrackerService.startTracking(article, chatId);
+
+        assertTrue(result.isPresent());
+        assertEquals(productName, result.get().getTitle());
+        assertEquals(Money.ofKopecks(500), result.get().getCurrentPrice());
+        assertEquals(Money.ofKopecks(450), result.get().getSalePrice());
+        assertEquals(Money.ofKopecks(700), result.get().getBasicPrice());
+        verify(priceHistoryRepository).saveAndFlush(any(PriceHistory.class));
+        verify(priceHistoryRepository).recordRollups(anyList());
+        assertEquals(500, priceStateTable.get(Marketplace.OZON, article).current());
+    }
+
+    @Test
+    void startTracking_shouldReuseCachedProduct_forAnotherChat() throws IOException {
+        when(ozonParser.getProductData(article)).thenReturn(product(450, 500, 700));
+        when(trackedItemRepository.save(any(TrackedItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ozonTrackerService.startTracking(article, chatId);
+        Optional<TrackedItemDto> second = ozonTrackerService.startTracking(article, chatId + 1);
+
+        assertTrue(second.isPresent());
+        assertEquals(Money.ofKopecks(450), second.get().getSalePrice());
+        verify(ozonParser, times(1)).getProductData(article);
+        assertEquals(1, productMetadataCache.stats().hitCount());
+    }
+
+    @Test
+    void startTracking_shouldReturnEmpty_whenPageHasFewerThanThreePrices() throws IOException {
+        when(ozonParser.getProductData(article))
+                .thenReturn(new OzonProductData(productName, List.of(Money.ofKopecks(500))));
+
+        assertTrue(ozonTrackerService.startTracking(article, chatId).isEmpty());
+
+        verify(eventPublisher).publishEvent(any(Notification.class));
+        verifyNoInteractions(priceHistoryRepository);
+        verify(trackedItemRepository, never()).save(any());
+    }
+
+    @Test
+    void startTracking_shouldReturnEmpty_whenPageDidNotLoad() throws IOException {
+        when(ozonParser.getProductData(article)).thenReturn(OzonProductData.empty());
+
+        assertTrue(ozonTrackerService.startTracking(article, chatId).isEmpty());
+
+        verify(eventPublisher).publishEvent(any(Notification.class));
+        verifyNoInteractions(priceHistoryRepository);
+    }
+
+    @Test
+    void checkPrice_shouldWriteChangeAndNotify_whenPriceChanges() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500), createTrackedItem(2L, chatId + 1, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(ozonParser.getProductData(article)).thenReturn(product(380, 400, 700));
+        when(priceUpdateWriter.getFlushSize()).thenReturn(500);
+
+        ozonTrackerService.checkPrice();
+
+        verify(priceUpdateWriter).write(argThat(changes -> changes.size() == 2
+                && changes.stream().allMatch(c -> c.currentPrice().equals(Money.ofKopecks(400))
+                && c.salePrice().equals(Money.ofKopecks(380)))));
+        verify(eventPublisher, times(2)).publishEvent(argThat((Object e) -> e instanceof PriceChangeEvent change
+                && change.marketplace() == Marketplace.OZON && change.newPrice().equals(Money.ofKopecks(400))));
+        assertEquals(400, priceStateTable.get(Marketplace.OZON, article).current());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof SweepSummary summary
+                && summary.count(SweepOutcome.CHANGED) == 1));
+    }
+
+    @Test
+    void checkPrice_shouldWriteAndNotify_whenOnlyCardPriceChanges() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(ozonParser.getProductData(article)).thenReturn(product(420, 500, 700));
+        when(priceUpdateWriter.getFlushSize()).thenReturn(500);
+
+        ozonTrackerService.checkPrice();
+
+        verify(priceUpdateWriter).write(argThat(changes -> changes.size() == 1
+                && changes.get(0).salePrice().equals(Money.ofKopecks(420))
+                && changes.get(0).currentPrice().equals(Money.ofKopecks(500))));
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof PriceChangeEvent change
+                && change.saleChanged() && change.newSalePrice().equals(Money.ofKopecks(420))));
+        assertEquals(420, priceStateTable.get(Marketplace.OZON, article).sale());
+    }
+
+    @Test
+    void checkPrice_shouldNotLoadItems_whenPriceMatchesTable() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(ozonParser.getProductData(article)).thenReturn(product(450, 500, 700));
+
+        ozonTrackerService.checkPrice();
+
+        verify(trackedItemRepository, times(1)).findAllByMarketplaceAndArticleIn(eq(Marketplace.OZON), anyCollection());
+        verify(priceUpdateWriter, never()).write(anyList());
+        verify(eventPublisher, never()).publishEvent(any(PriceChangeEvent.class));
+        assertEquals(Duration.ofMinutes(15), pollScheduler.interval(Marketplace.OZON, article).orElseThrow());
+    }
+
+    @Test
+    void checkPrice_shouldBackOff_whenPageHasFewerThanThreePrices() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(ozonParser.getProductData(article))
+                .thenReturn(new OzonProductData(productName, List.of(Money.ofKopecks(400), Money.ofKopecks(700))));
+
+        ozonTrackerService.checkPrice();
+
+        verify(priceUpdateWriter, never()).write(anyList());
+        assertEquals(500, priceStateTable.get(Marketplace.OZON, article).current());
+        assertEquals(Duration.ofMinutes(15), pollScheduler.interval(Marketplace.OZON, article).orElseThrow());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof SweepSummary summary
+                && summary.count(SweepOutcome.NOT_FOUND) == 1));
+    }
+
+    @Test
+    void checkPrice_shouldCountFailed_whenPageDidNotLoad() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(ozonParser.getProductData(article)).thenReturn(OzonProductData.empty());
+
+        ozonTrackerService.checkPrice();
+
+        verify(priceUpdateWriter, never()).write(anyList());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof SweepSummary summary
+                && summary.count(SweepOutcome.FAILED) == 1));
+    }
+
+    @Test
+    void checkPrice_shouldForgetArticle_whenNoLongerTracked() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, chatId, 500)));
+        ozonTrackerService.warmPriceTable();
+        when(trackedItemRepository.findAllByMarketplaceAndArticleIn(Marketplace.OZON, List.of(article)))
+                .thenReturn(List.of());
+        when(ozonParser.getProductData(article)).thenReturn(product(380, 400, 700));
+
+        ozonTrackerService.checkPrice();
+
+        assertNull(priceStateTable.get(Marketplace.OZON, article));
+        assertTrue(pollScheduler.interval(Marketplace.OZON, article).isEmpty());
+        verify(priceUpdateWriter, never()).write(anyList());
+    }
+
+    private void givenTrackedItems(List<TrackedItem> items) {
+        List<String> articles = items.stream().map(TrackedItem::getArticle).distinct().sorted().toList();
+        when(trackedItemRepository.findArticlesAfter(eq(Marketplace.OZON), anyString(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    String after = invocation.getArgument(1);
+                    Limit limit = invocation.getArgument(2);
+                    return articles.stream().filter(a -> a.compareTo(after) > 0).limit(limit.max()).toList();
+                });
+        lenient().when(trackedItemRepository.findAllByMarketplaceAndArticleIn(eq(Marketplace.OZON), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<String> wanted = invocation.getArgument(1);
+                    return items.stream().filter(i -> wanted.contains(i.getArticle())).toList();
+                });
+    }
+
+    // порядок как у OzonParser: с картой, без карты, базовая
+    private OzonProductData product(long sale, long current, long basic) {
+        return new OzonProductData(productName,
+                List.of(Money.ofKopecks(sale), Money.ofKopecks(current), Money.ofKopecks(basic)));
+    }
+
+    private TrackedItem createTrackedItem(Long id, Long chatId, long currentPrice) {
+        return TrackedItem.builder()
+                .id(id)
+                .article(article)
+                .chatId(chatId)
+                .marketplace(Marketplace.OZON)
+                .basicPrice(Money.ofKopecks(700))
+                .currentPrice(Money.ofKopecks(currentPrice))
+                .salePrice(Money.ofKopecks(450))
+                .title(productName)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package by.northdakota.markettracker.Core.Service;
+
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonParser;
+import by.northdakota.markettracker.Core.Parser.Ozon.OzonProductData;
+import by.northdakota.markettracker.Core.Parser.WB.WbDataProvider;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// startTracking на настоящей схеме из миграций: агрегаты пишутся через JDBC и ссылаются на tracked_items,
+// поэтому с моками репозиториев порядок записи не проверить
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({WbTrackerService.class, OzonTrackerService.class, PriceStateTable.class, ProductMetadataCache.class,
+        StartTrackingPostgresTest.Config.class})
+class StartTrackingPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // warmPriceTable читает таблицу страницами уже при старте контекста
+        @Bean
+        SweepEngine sweepEngine() {
+            SweepEngine sweepEngine = mock(SweepEngine.class);
+            when(sweepEngine.getPageSize()).thenReturn(100);
+            return sweepEngine;
+        }
+    }
+
+    @MockitoBean
+    private WbDataProvider wbDataProvider;
+    @MockitoBean
+    private OzonParser ozonParser;
+    @MockitoBean
+    private PriceUpdateWriter priceUpdateWriter;
+    @MockitoBean
+    private PollScheduler pollScheduler;
+
+    @Autowired
+    private WbTrackerService wbTrackerService;
+    @Autowired
+    private OzonTrackerService ozonTrackerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void wbStartTracking_shouldWriteItemHistoryAndRollups() throws IOException {
+        when(wbDataProvider.getProductsData(List.of("100500"))).thenReturn(Map.of("100500",
+                new WbProductCard(100500L, "Футболка", Money.ofKopecks(14000), Money.ofKopecks(9900))));
+
+        assertTrue(wbTrackerService.startTracking("100500", 1L).isPresent());
+
+        assertRows(Marketplace.WB, "100500", 9900);
+    }
+
+    @Test
+    void ozonStartTracking_shouldWriteItemHistoryAndRollups() throws IOException {
+        when(ozonParser.getProductData("200600")).thenReturn(new OzonProductData("Кружка",
+                List.of(Money.ofKopecks(45000), Money.ofKopecks(50000), Money.ofKopecks(70000))));
+
+        assertTrue(ozonTrackerService.startTracking("200600", 1L).isPresent());
+
+        assertRows(Marketplace.OZON, "200600", 50000);
+    }
+
+    private void assertRows(Marketplace marketplace, String article, long price) {
+        Long itemId = jdbcTemplate.queryForObject(
+                "select id from tracked_items where marketplace = ? and article = ?",
+                Long.class, marketplace.name(), article);
+        assertEquals(price, jdbcTemplate.queryForObject(
+                "select price from price_history where item_id = ?", Long.class, itemId));
+        for (String table : List.of("price_history_hourly", "price_history_daily")) {
+            assertEquals(price, jdbcTemplate.queryForObject(
+                    "select last_price from " + table + " where item_id = ?", Long.class, itemId));
+        }
+    }
+}
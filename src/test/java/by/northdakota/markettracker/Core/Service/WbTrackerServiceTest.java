@@ -1,33 +1,52 @@
 package by.northdakota.markettracker.Core.Service;
 
+import by.northdakota.markettracker.Core.Catalog.ProductMetadataCache;
 import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
 import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
 import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
 import by.northdakota.markettracker.Core.Entity.PriceHistory;
 import by.northdakota.markettracker.Core.Entity.TrackedItem;
 import by.northdakota.markettracker.Core.Parser.WB.WbDataProvider;
-import by.northdakota.markettracker.Core.Parser.WB.WbParser;
+import by.northdakota.markettracker.Core.Parser.WB.WbProductCard;
+import by.northdakota.markettracker.Core.Repository.PollScheduleRepository;
 import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
 import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import by.northdakota.markettracker.Core.Sweep.PollScheduler;
+import by.northdakota.markettracker.Core.Sweep.PriceChange;
+import by.northdakota.markettracker.Core.Sweep.PriceState;
+import by.northdakota.markettracker.Core.Sweep.PriceStateTable;
+import by.northdakota.markettracker.Core.Sweep.PriceUpdateWriter;
+import by.northdakota.markettracker.Core.Sweep.SweepEngine;
+import by.northdakota.markettracker.Core.Sweep.SweepOutcome;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -43,7 +62,18 @@ class WbTrackerServiceTest {
     @Mock
     private PriceHistoryRepository priceHistoryRepository;
     @Mock
-    private WbParser wbParser;
+    private PriceUpdateWriter priceUpdateWriter;
+    @Spy
+    private PriceStateTable priceStateTable = new PriceStateTable();
+    @Spy
+    private SweepEngine sweepEngine = new SweepEngine(4, 1, Duration.ofMinutes(1), 2);
+    @Spy
+    private PollScheduler pollScheduler =
+            new PollScheduler(mock(PollScheduleRepository.class), Clock.systemUTC(),
+                    Duration.ofMinutes(10), Duration.ofHours(6), Duration.ZERO, 0, Duration.ofMinutes(25), 500);
+    @Spy
+    private ProductMetadataCache productMetadataCache =
+            new ProductMetadataCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(15));
 
     @InjectMocks
     private WbTrackerService wbTrackerService;
@@ -61,7 +91,7 @@ class WbTrackerServiceTest {
 
         assertTrue(result.isEmpty());
         verify(eventPublisher).publishEvent(any(Notification.class));
-        verifyNoInteractions(wbDataProvider,wbParser,priceHistoryRepository);
+        verifyNoInteractions(wbDataProvider,priceHistoryRepository);
     }
 
     @Test
@@ -69,23 +99,17 @@ class WbTrackerServiceTest {
         Mockito.when(trackedItemRepository.existsByArticleAndChatIdAndMarketplace(article,chatId,Marketplace.WB))
                 .thenReturn(false);
 
-        JSONObject object = new JSONObject().put("products",new JSONArray().put(new JSONObject()));
-
-        Mockito.when(wbDataProvider.getProductData(article)).thenReturn(object);
-        Mockito.when(wbParser.getPriceList(object)).thenReturn(Map.of(
-                "product", BigDecimal.valueOf(100),
-                "basic",BigDecimal.valueOf(140)));
-        Mockito.when(wbParser.getProductName(object)).thenReturn(productName);
+        Mockito.when(wbDataProvider.getProductsData(List.of(article)))
+                .thenReturn(Map.of(article, new WbProductCard(Long.parseLong(article), productName, Money.ofKopecks(140), Money.ofKopecks(100))));
 
         TrackedItem trackedItem = TrackedItem.builder()
-                .currentPrice(BigDecimal.valueOf(100))
-                .basicPrice(BigDecimal.valueOf(140))
+                .currentPrice(Money.ofKopecks(100))
+                .basicPrice(Money.ofKopecks(140))
                 .salePrice(null)
                 .title(productName)
                 .marketplace(Marketplace.WB)
                 .article(article)
                 .chatId(chatId)
-                .priceHistory(new ArrayList<>())
                 .build();
 
         Mockito.when(trackedItemRepository.save(any(TrackedItem.class))).thenReturn(trackedItem);
@@ -96,7 +120,24 @@ class WbTrackerServiceTest {
 
         assertEquals(productName,result.get().getTitle());
         verify(trackedItemRepository).save(any(TrackedItem.class));
-        verify(priceHistoryRepository).save(any(PriceHistory.class));
+        verify(priceHistoryRepository).saveAndFlush(any(PriceHistory.class));
+        verify(priceHistoryRepository).recordRollups(anyList());
+    }
+
+    @Test
+    void startTracking_shouldReuseCachedCard_forAnotherChat() throws IOException {
+        Mockito.when(wbDataProvider.getProductsData(List.of(article)))
+                .thenReturn(Map.of(article, new WbProductCard(Long.parseLong(article), productName, Money.ofKopecks(140), Money.ofKopecks(100))));
+        Mockito.when(trackedItemRepository.save(any(TrackedItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        wbTrackerService.startTracking(article, chatId);
+        Optional<TrackedItemDto> second = wbTrackerService.startTracking(article, chatId + 1);
+
+        assertTrue(second.isPresent());
+        assertEquals(productName, second.get().getTitle());
+        assertEquals(Money.ofKopecks(100), second.get().getCurrentPrice());
+        verify(wbDataProvider, times(1)).getProductsData(anyList());
+        assertEquals(1, productMetadataCache.stats().hitCount());
     }
 
     @Test
@@ -105,9 +146,7 @@ class WbTrackerServiceTest {
         Mockito.when(trackedItemRepository.existsByArticleAndChatIdAndMarketplace(article,chatId,Marketplace.WB))
                 .thenReturn(false);
 
-        JSONObject object = new JSONObject().put("products",new JSONArray());
-
-        Mockito.when(wbDataProvider.getProductData(article)).thenReturn(object);
+        Mockito.when(wbDataProvider.getProductsData(List.of(article))).thenReturn(Map.of());
 
         var result = wbTrackerService.startTracking(article,chatId);
 
@@ -124,91 +163,256 @@ class WbTrackerServiceTest {
     }
 
     @Test
-    void getUserTrackedItem_shouldReturnTrackedItems_whenItemsAlreadyTracked(){
+    void checkPrice_shouldChangePrice_whenActualPriceChanges() throws IOException {
+
         List<TrackedItem> trackedItems = createTrackedItems();
-        Mockito.when(trackedItemRepository.findAllByChatIdAndMarketplace(chatId,Marketplace.WB))
-                .thenReturn(Optional.of(trackedItems));
 
-        var result = wbTrackerService.getUserTrackedItem(chatId);
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
+
+
+        Map<String, WbProductCard> cards = new HashMap<>();
+        for(TrackedItem trackedItem : trackedItems){
+            cards.put(trackedItem.getArticle(), card(trackedItem.getArticle(), 100));
+        }
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection())).thenReturn(cards);
+        Mockito.when(priceUpdateWriter.getFlushSize()).thenReturn(500);
 
-        assertAll(
-                ()->assertFalse(result.isEmpty()),
-                ()->assertEquals(3,result.size()),
-                ()->assertEquals(article+"1",result.get(0).getArticle()),
-                ()->assertEquals(article+"2",result.get(1).getArticle()),
-                ()->assertEquals(article+"3",result.get(2).getArticle())
-        );
-        verifyNoInteractions(eventPublisher);
+        wbTrackerService.checkPrice();
+
+        int times = trackedItems.size();
+
+        verify(priceUpdateWriter).write(argThat(changes -> changes.size() == times
+                && changes.stream().allMatch(c -> c.currentPrice().equals(Money.ofKopecks(100)))));
+        verify(trackedItemRepository,never()).save(any(TrackedItem.class));
+        verifyNoInteractions(priceHistoryRepository);
+        verify(eventPublisher,times(times)).publishEvent(argThat((Object e) -> e instanceof PriceChangeEvent change
+                && change.newPrice().equals(Money.ofKopecks(100))));
+        verify(eventPublisher).publishEvent(any(SweepSummary.class));
     }
 
     @Test
-    void getUserTrackedItem_shouldReturnEmptyList_whenNoTrackedItemFound(){
-        Mockito.when(trackedItemRepository.findAllByChatIdAndMarketplace(chatId,Marketplace.WB))
-                .thenReturn(Optional.empty());
+    void checkPrice_shouldDoNothing_whenPriceDidntChange() throws IOException {
+        List<TrackedItem> trackedItems = createTrackedItems();
 
-        var result = wbTrackerService.getUserTrackedItem(chatId);
-        assertTrue(result.isEmpty());
-        verify(eventPublisher,times(1)).publishEvent(any(Notification.class));
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
+
+        Map<String, WbProductCard> cards = new HashMap<>();
+        for (TrackedItem item : trackedItems) {
+            cards.put(item.getArticle(), card(item.getArticle(), item.getCurrentPrice().kopecks()));
+        }
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection())).thenReturn(cards);
+
+        wbTrackerService.checkPrice();
+
+        verify(trackedItemRepository,times(2)).findArticlesAfter(eq(Marketplace.WB), anyString(), any(Limit.class));
+        verify(trackedItemRepository,times(2)).findAllByMarketplaceAndArticleIn(eq(Marketplace.WB), anyCollection());
+        verifyNoMoreInteractions(trackedItemRepository);
+        verify(priceUpdateWriter,never()).write(anyList());
+        verifyNoInteractions(priceHistoryRepository);
+        verify(eventPublisher,never()).publishEvent(any(PriceChangeEvent.class));
     }
 
     @Test
-    void checkPrice_shouldChangePrice_whenActualPriceChanges() throws IOException {
+    void checkPrice_shouldWriteBasicPriceWithoutNotifying_whenOnlyBasicPriceChanges() throws IOException {
+        givenTrackedItems(List.of(createTrackedItem(1L, article, chatId, 120)));
+        wbTrackerService.warmPriceTable();
 
-        List<TrackedItem> trackedItems = createTrackedItems();
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(List.of(article))).thenReturn(Map.of(article,
+                new WbProductCard(Long.parseLong(article), productName, Money.ofKopecks(250), Money.ofKopecks(120))));
+        Mockito.when(priceUpdateWriter.getFlushSize()).thenReturn(500);
 
-        Mockito.when(trackedItemRepository.findAllByMarketplace(Marketplace.WB))
-                .thenReturn(Optional.of(trackedItems));
+        wbTrackerService.checkPrice();
 
+        verify(priceUpdateWriter).write(argThat(changes -> changes.size() == 1
+                && changes.get(0).basicPrice().equals(Money.ofKopecks(250))));
+        verify(eventPublisher, never()).publishEvent(any(PriceChangeEvent.class));
+        assertEquals(250, priceStateTable.get(Marketplace.WB, article).basic());
+    }
 
-        JSONObject data = new JSONObject()
-                .put("products",new JSONArray());
+    @Test
+    void checkPrice_shouldFetchArticleOnce_whenTrackedByManyChats() throws IOException {
+        List<TrackedItem> trackedItems = List.of(
+                createTrackedItem(1L, article, 1L, 120),
+                createTrackedItem(2L, article, 2L, 120),
+                createTrackedItem(3L, article, 3L, 150));
 
-        for(TrackedItem trackedItem : trackedItems){
-            Mockito.when(wbDataProvider.getProductData(trackedItem.getArticle())).thenReturn(data);
-            Mockito.when(wbParser.getPriceList(data)).thenReturn(Map.of("product",new BigDecimal(100)));
-        }
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
 
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(List.of(article))).thenReturn(Map.of(article, card(article, 100)));
+        Mockito.when(priceUpdateWriter.getFlushSize()).thenReturn(500);
 
         wbTrackerService.checkPrice();
 
-        int times = trackedItems.size();
+        verify(wbDataProvider,times(1)).getProductsData(anyCollection());
+        verify(priceUpdateWriter).write(argThat(changes -> changes.stream().map(PriceChange::itemId).toList()
+                .containsAll(List.of(1L, 2L, 3L)) && changes.size() == 3));
+        verify(eventPublisher,times(3)).publishEvent(any(PriceChangeEvent.class));
+    }
+
+    @Test
+    void checkPrice_shouldSkipItem_whenProductMissingInBatch() throws IOException {
+        List<TrackedItem> trackedItems = createTrackedItems();
+
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection())).thenReturn(Map.of());
 
-        verify(trackedItemRepository,times(times)).save(any(TrackedItem.class));
-        verify(priceHistoryRepository,times(times)).save(any(PriceHistory.class));
-        verify(eventPublisher,times(times)).publishEvent(any(Notification.class));
+        wbTrackerService.checkPrice();
+
+        verify(wbDataProvider).getProductsData(anyCollection());
+        verifyNoInteractions(priceHistoryRepository);
+        verify(eventPublisher,never()).publishEvent(any(PriceChangeEvent.class));
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof SweepSummary summary
+                && summary.count(SweepOutcome.NOT_FOUND) == 3 && summary.count(SweepOutcome.FAILED) == 0));
+        assertEquals(Duration.ofMinutes(15), pollScheduler.interval(Marketplace.WB, article + "1").orElseThrow());
     }
 
     @Test
-    void checkPrice_shouldDoNothing_whenPriceDidntChange() throws IOException {
+    void checkPrice_shouldSkipArticles_whenNotDueYet() throws IOException {
         List<TrackedItem> trackedItems = createTrackedItems();
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
 
-        Mockito.when(trackedItemRepository.findAllByMarketplace(Marketplace.WB))
-                .thenReturn(Optional.of(trackedItems));
+        Map<String, WbProductCard> cards = new HashMap<>();
+        for (TrackedItem item : trackedItems) {
+            cards.put(item.getArticle(), card(item.getArticle(), item.getCurrentPrice().kopecks()));
+        }
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection())).thenReturn(cards);
 
+        wbTrackerService.checkPrice();
+        wbTrackerService.checkPrice();
+
+        verify(wbDataProvider,times(1)).getProductsData(anyCollection());
+        verify(eventPublisher,times(1)).publishEvent(any(SweepSummary.class));
+        assertEquals(Duration.ofMinutes(15), pollScheduler.interval(Marketplace.WB, article + "1").orElseThrow());
+    }
+
+    @Test
+    void warmPriceTable_shouldLoadTrackedItemsPageByPage() {
+        List<TrackedItem> trackedItems = createTrackedItems();
+        givenTrackedItems(trackedItems);
+
+        wbTrackerService.warmPriceTable();
+
+        verify(trackedItemRepository).findArticlesAfter(eq(Marketplace.WB), eq(""), eq(Limit.of(2)));
+        verify(trackedItemRepository).findArticlesAfter(eq(Marketplace.WB), eq(article + "2"), eq(Limit.of(2)));
+        verify(trackedItemRepository).findAllByMarketplaceAndArticleIn(Marketplace.WB, List.of(article + "1", article + "2"));
+        verify(trackedItemRepository).findAllByMarketplaceAndArticleIn(Marketplace.WB, List.of(article + "3"));
+        assertEquals(List.of(article + "1", article + "2", article + "3"), priceStateTable.articles(Marketplace.WB));
+    }
+
+    @Test
+    void checkPrice_shouldLoadOnlyChangedArticles() throws IOException {
+        List<TrackedItem> trackedItems = createTrackedItems();
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
+
+        Map<String, WbProductCard> cards = new HashMap<>();
         for (TrackedItem item : trackedItems) {
-            JSONObject data = new JSONObject(); // можешь оставить пустой
-            Mockito.when(wbDataProvider.getProductData(item.getArticle()))
-                    .thenReturn(data);
-            Mockito.when(wbParser.getPriceList(data))
-                    .thenReturn(Map.of("product", item.getCurrentPrice()));
+            cards.put(item.getArticle(), card(item.getArticle(), item.getCurrentPrice().kopecks()));
         }
+        cards.put(article + "2", card(article + "2", 100));
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection())).thenReturn(cards);
 
         wbTrackerService.checkPrice();
 
-        verify(trackedItemRepository).findAllByMarketplace(Marketplace.WB);
-        verifyNoMoreInteractions(trackedItemRepository);
-        verifyNoInteractions(priceHistoryRepository,eventPublisher);
+        verify(trackedItemRepository).findAllByMarketplaceAndArticleIn(Marketplace.WB, List.of(article + "2"));
+        verify(priceUpdateWriter).write(argThat(changes -> changes.size() == 1));
+        assertEquals(100, priceStateTable.get(Marketplace.WB, article + "2").current());
+    }
+
+    @Test
+    void checkPrice_shouldKeepOldPrice_whenWriteFails() throws IOException {
+        List<TrackedItem> trackedItems = createTrackedItems();
+        givenTrackedItems(trackedItems);
+        wbTrackerService.warmPriceTable();
+
+        Mockito.when(wbDataProvider.getBatchSize()).thenReturn(100);
+        Mockito.when(wbDataProvider.getProductsData(anyCollection()))
+                .thenReturn(Map.of(article + "2", card(article + "2", 100)));
+        Mockito.when(priceUpdateWriter.getFlushSize()).thenReturn(500);
+        doThrow(new IllegalStateException("connection refused")).when(priceUpdateWriter).write(anyList());
+
+        assertThrows(IllegalStateException.class, () -> wbTrackerService.checkPrice());
+
+        assertEquals(140, priceStateTable.get(Marketplace.WB, article + "2").current());
+        verify(eventPublisher,never()).publishEvent(any(PriceChangeEvent.class));
+    }
+
+    @Test
+    void stopTracking_shouldForgetPrice_whenNoChatTracksArticle() {
+        priceStateTable.putIfAbsent(Marketplace.WB, article, new PriceState(140, 100, PriceState.NO_PRICE));
+        Mockito.when(trackedItemRepository.existsByArticleAndMarketplace(article, Marketplace.WB)).thenReturn(false);
+
+        wbTrackerService.stopTracking(article, chatId);
+
+        assertNull(priceStateTable.get(Marketplace.WB, article));
+    }
+
+    @Test
+    void stopTracking_shouldKeepPrice_whenOtherChatTracksArticle() {
+        priceStateTable.putIfAbsent(Marketplace.WB, article, new PriceState(140, 100, PriceState.NO_PRICE));
+        Mockito.when(trackedItemRepository.existsByArticleAndMarketplace(article, Marketplace.WB)).thenReturn(true);
+
+        wbTrackerService.stopTracking(article, chatId);
+
+        assertNotNull(priceStateTable.get(Marketplace.WB, article));
     }
 
     @Test
     void checkPrice_shouldDoNothing_whenNoTrackedItemFound() throws IOException {
-        Mockito.when(trackedItemRepository.findAllByMarketplace(Marketplace.WB)).thenReturn(Optional.empty());
+        Mockito.when(trackedItemRepository.findArticlesAfter(eq(Marketplace.WB), eq(""), any(Limit.class)))
+                .thenReturn(List.of());
 
+        wbTrackerService.warmPriceTable();
         wbTrackerService.checkPrice();
 
-        verify(trackedItemRepository).findAllByMarketplace(Marketplace.WB);
+        verify(trackedItemRepository).findArticlesAfter(eq(Marketplace.WB), eq(""), any(Limit.class));
         verifyNoMoreInteractions(trackedItemRepository);
-        verifyNoInteractions(wbDataProvider,wbParser,priceHistoryRepository);
+        verify(wbDataProvider,never()).getProductsData(anyCollection());
+        verifyNoInteractions(priceHistoryRepository);
+    }
+
+    private void givenTrackedItems(List<TrackedItem> items){
+        List<String> articles = items.stream().map(TrackedItem::getArticle).distinct().sorted().toList();
+        Mockito.when(trackedItemRepository.findArticlesAfter(eq(Marketplace.WB), anyString(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    String after = invocation.getArgument(1);
+                    Limit limit = invocation.getArgument(2);
+                    return articles.stream().filter(a -> a.compareTo(after) > 0).limit(limit.max()).toList();
+                });
+        Mockito.when(trackedItemRepository.findAllByMarketplaceAndArticleIn(eq(Marketplace.WB), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<String> wanted = invocation.getArgument(1);
+                    return items.stream().filter(i -> wanted.contains(i.getArticle())).toList();
+                });
+    }
+
+    private WbProductCard card(String article, long price){
+        return new WbProductCard(Long.parseLong(article), productName, Money.ofKopecks(200), Money.ofKopecks(price));
+    }
+
+    private TrackedItem createTrackedItem(Long id, String article, Long chatId, long currentPrice){
+        return TrackedItem.builder()
+                .id(id)
+                .article(article)
+                .chatId(chatId)
+                .marketplace(Marketplace.WB)
+                .basicPrice(Money.ofKopecks(200))
+                .currentPrice(Money.ofKopecks(currentPrice))
+                .salePrice(null)
+                .title(productName)
+                .build();
     }
 
     private List<TrackedItem> createTrackedItems(){
@@ -217,9 +421,8 @@ class WbTrackerServiceTest {
                 .article(article + "1")
                 .chatId(chatId)
                 .marketplace(Marketplace.WB)
-                .priceHistory(new ArrayList<>())
-                .basicPrice(BigDecimal.valueOf(100))
-                .currentPrice(BigDecimal.valueOf(120))
+                .basicPrice(Money.ofKopecks(200))
+                .currentPrice(Money.ofKopecks(120))
                 .salePrice(null)
                 .title(productName)
                 .build();
@@ -228,9 +431,8 @@ class WbTrackerServiceTest {
                 .article(article + "2")
                 .chatId(chatId)
                 .marketplace(Marketplace.WB)
-                .priceHistory(new ArrayList<>())
-                .basicPrice(BigDecimal.valueOf(100))
-                .currentPrice(BigDecimal.valueOf(140))
+                .basicPrice(Money.ofKopecks(200))
+                .currentPrice(Money.ofKopecks(140))
                 .salePrice(null)
                 .title(productName)
                 .build();
@@ -239,9 +441,8 @@ class WbTrackerServiceTest {
                 .article(article + "3")
                 .chatId(chatId)
                 .marketplace(Marketplace.WB)
-                .priceHistory(new ArrayList<>())
-                .basicPrice(BigDecimal.valueOf(90))
-                .currentPrice(BigDecimal.valueOf(160))
+                .basicPrice(Money.ofKopecks(200))
+                .currentPrice(Money.ofKopecks(160))
                 .salePrice(null)
                 .title(productName)
                 .build();
@@ -0,0 +1,177 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Repository.PollScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PollSchedulerTest {
+
+    @Mock
+    private PollScheduleRepository repository;
+
+    private final MutableClock clock = new MutableClock();
+    private PollScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new PollScheduler(repository, clock,
+                Duration.ofMinutes(10), Duration.ofHours(1), Duration.ofMinutes(20), 0, Duration.ofMinutes(25), 2);
+    }
+
+    @Test
+    void completed_shouldShortenVolatileAndLengthenStableIntervals() {
+        scheduler.track(Marketplace.WB, "1");
+        scheduler.track(Marketplace.WB, "2");
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(List.of("1", "2"), scheduler.claimDue(Marketplace.WB).stream().sorted().toList());
+
+        scheduler.completed(Marketplace.WB, Map.of("1", SweepOutcome.CHANGED, "2", SweepOutcome.UNCHANGED));
+
+        assertEquals(Duration.ofMinutes(10), scheduler.interval(Marketplace.WB, "1").orElseThrow());
+        assertEquals(Duration.ofMinutes(30), scheduler.interval(Marketplace.WB, "2").orElseThrow());
+        clock.advance(Duration.ofMinutes(10));
+        assertEquals(List.of("1"), scheduler.claimDue(Marketplace.WB));
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(List.of("2"), scheduler.claimDue(Marketplace.WB));
+    }
+
+    @Test
+    void completed_shouldKeepIntervalWithinBounds() {
+        scheduler.track(Marketplace.OZON, "1");
+        for (int i = 0; i < 10; i++) {
+            scheduler.completed(Marketplace.OZON, Map.of("1", SweepOutcome.UNCHANGED));
+        }
+        assertEquals(Duration.ofHours(1), scheduler.interval(Marketplace.OZON, "1").orElseThrow());
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.completed(Marketplace.OZON, Map.of("1", SweepOutcome.CHANGED));
+        }
+        assertEquals(Duration.ofMinutes(10), scheduler.interval(Marketplace.OZON, "1").orElseThrow());
+    }
+
+    @Test
+    void completed_shouldBackOff_whenArticleNotFound() {
+        scheduler.track(Marketplace.WB, "1");
+        clock.advance(Duration.ofMinutes(20));
+        scheduler.claimDue(Marketplace.WB);
+
+        scheduler.completed(Marketplace.WB, Map.of("1", SweepOutcome.NOT_FOUND));
+
+        assertEquals(Duration.ofMinutes(30), scheduler.interval(Marketplace.WB, "1").orElseThrow());
+        clock.advance(Duration.ofMinutes(10));
+        assertTrue(scheduler.claimDue(Marketplace.WB).isEmpty());
+    }
+
+    @Test
+    void claimDue_shouldReturnArticleAgain_whenLeaseExpiresWithoutOutcome() {
+        scheduler.track(Marketplace.WB, "1");
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(List.of("1"), scheduler.claimDue(Marketplace.WB));
+
+        clock.advance(Duration.ofMinutes(24));
+        assertTrue(scheduler.claimDue(Marketplace.WB).isEmpty());
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(List.of("1"), scheduler.claimDue(Marketplace.WB));
+    }
+
+    @Test
+    void untrack_shouldDropArticleFromQueue() {
+        scheduler.track(Marketplace.WB, "1");
+        scheduler.untrack(Marketplace.WB, "1");
+        scheduler.completed(Marketplace.WB, Map.of("1", SweepOutcome.CHANGED));
+        clock.advance(Duration.ofHours(1));
+
+        assertTrue(scheduler.claimDue(Marketplace.WB).isEmpty());
+        assertEquals(0, scheduler.size(Marketplace.WB));
+    }
+
+    @Test
+    void completed_shouldCheckpointEveryNOutcomes() {
+        scheduler.track(Marketplace.WB, "1");
+        scheduler.track(Marketplace.WB, "2");
+
+        scheduler.completed(Marketplace.WB, Map.of("1", SweepOutcome.UNCHANGED));
+        verify(repository, never()).saveAll(any(), anyCollection());
+        scheduler.completed(Marketplace.WB, Map.of("2", SweepOutcome.CHANGED));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PollCheckpoint>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(eq(Marketplace.WB), saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertTrue(saved.getValue().contains(new PollCheckpoint("2",
+                clock.instant().plus(Duration.ofMinutes(10)), Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void restore_shouldResumeInterruptedSweepAndSkipCheckedArticles() {
+        scheduler.track(Marketplace.WB, "checked");
+        scheduler.track(Marketplace.WB, "interrupted");
+        when(repository.findAll(Marketplace.WB)).thenReturn(Map.of(
+                "checked", new PollCheckpoint("checked", clock.instant().plus(Duration.ofMinutes(40)), Duration.ofMinutes(40)),
+                "interrupted", new PollCheckpoint("interrupted", clock.instant().minusSeconds(60), Duration.ofMinutes(30)),
+                "removed", new PollCheckpoint("removed", clock.instant(), Duration.ofMinutes(30))));
+
+        scheduler.restore(Marketplace.WB);
+
+        assertEquals(List.of("interrupted"), scheduler.claimDue(Marketplace.WB));
+        assertEquals(Duration.ofMinutes(40), scheduler.interval(Marketplace.WB, "checked").orElseThrow());
+        verify(repository).deleteAll(Marketplace.WB, List.of("removed"));
+    }
+
+    @Test
+    void checkpoint_shouldKeepPendingCheckpoints_whenSaveFails() {
+        scheduler.track(Marketplace.OZON, "1");
+        scheduler.completed(Marketplace.OZON, Map.of("1", SweepOutcome.UNCHANGED));
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doNothing()
+                .when(repository).saveAll(eq(Marketplace.OZON), anyCollection());
+
+        scheduler.checkpoint(Marketplace.OZON);
+        scheduler.checkpoint(Marketplace.OZON);
+
+        verify(repository, times(2)).saveAll(eq(Marketplace.OZON), argThat(c -> c.size() == 1));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-10-17T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
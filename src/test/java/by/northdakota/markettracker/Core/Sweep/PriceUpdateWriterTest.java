@@ -0,0 +1,129 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.PriceHistory;
+import by.northdakota.markettracker.Core.Entity.TrackedItem;
+import by.northdakota.markettracker.Core.Repository.PriceHistoryRepository;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceUpdateWriterTest {
+
+    @Mock
+    private TrackedItemRepository trackedItemRepository;
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Test
+    void write_shouldUpdateItemsAndInsertHistoryInOneBatch() {
+        PriceUpdateWriter writer = new PriceUpdateWriter(trackedItemRepository, priceHistoryRepository, 500);
+        TrackedItem first = item(1L, 100);
+        TrackedItem second = item(2L, 200);
+        when(trackedItemRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(first, second));
+        LocalDateTime now = LocalDateTime.now();
+
+        writer.write(List.of(
+                new PriceChange(1L, Money.ofKopecks(300), Money.ofKopecks(90), null, now),
+                new PriceChange(2L, Money.ofKopecks(300), Money.ofKopecks(250), Money.ofKopecks(240), now),
+                new PriceChange(3L, Money.ofKopecks(300), Money.ofKopecks(10), null, now)));
+
+        assertEquals(Money.ofKopecks(90), first.getCurrentPrice());
+        assertEquals(Money.ofKopecks(250), second.getCurrentPrice());
+        assertEquals(Money.ofKopecks(240), second.getSalePrice());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceHistory>> history = ArgumentCaptor.forClass(List.class);
+        verify(priceHistoryRepository).saveAll(history.capture());
+        assertEquals(List.of(first, second), history.getValue().stream().map(PriceHistory::getItem).toList());
+        verify(priceHistoryRepository).recordRollups(history.getValue());
+        verify(trackedItemRepository, never()).save(any());
+    }
+
+    @Test
+    void write_shouldSkipHistory_whenCurrentPriceUnchanged() {
+        PriceUpdateWriter writer = new PriceUpdateWriter(trackedItemRepository, priceHistoryRepository, 500);
+        TrackedItem item = item(1L, 100);
+        when(trackedItemRepository.findAllById(List.of(1L))).thenReturn(List.of(item));
+
+        writer.write(List.of(new PriceChange(1L, Money.ofKopecks(300), Money.ofKopecks(100), Money.ofKopecks(80),
+                LocalDateTime.now())));
+
+        assertEquals(Money.ofKopecks(80), item.getSalePrice());
+        assertEquals(Money.ofKopecks(300), item.getBasicPrice());
+        verify(priceHistoryRepository).saveAll(List.of());
+    }
+
+    @Test
+    void buffer_shouldWriteWhenFullAndOnFlush() {
+        PriceUpdateWriter writer = spy(new PriceUpdateWriter(trackedItemRepository, priceHistoryRepository, 2));
+        doNothing().when(writer).write(anyList());
+        PriceUpdateBuffer buffer = new PriceUpdateBuffer(writer);
+
+        for (long id = 1; id <= 5; id++) {
+            buffer.add(new PriceChange(id, Money.ofKopecks(300), Money.ofKopecks(100), null, LocalDateTime.now()));
+        }
+        verify(writer, times(2)).write(argThat(changes -> changes.size() == 2));
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(writer).write(argThat(changes -> changes.size() == 1));
+        verify(writer, times(3)).write(anyList());
+    }
+
+    @Test
+    void buffer_shouldRunCallbacksOnlyAfterWrite() {
+        PriceUpdateWriter writer = spy(new PriceUpdateWriter(trackedItemRepository, priceHistoryRepository, 2));
+        doThrow(new IllegalStateException("connection refused")).doNothing().when(writer).write(anyList());
+        PriceUpdateBuffer buffer = new PriceUpdateBuffer(writer);
+        List<String> written = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> buffer.add(List.of(
+                new PriceChange(1L, Money.ofKopecks(300), Money.ofKopecks(100), null, LocalDateTime.now()),
+                new PriceChange(2L, Money.ofKopecks(300), Money.ofKopecks(100), null, LocalDateTime.now())), () -> written.add("1")));
+        assertTrue(written.isEmpty());
+
+        buffer.add(List.of(new PriceChange(3L, Money.ofKopecks(300), Money.ofKopecks(100), null, LocalDateTime.now())), () -> written.add("3"));
+        buffer.flush();
+
+        verify(writer).write(argThat(changes -> changes.size() == 1));
+        assertEquals(List.of("3"), written);
+    }
+
+    @Test
+    void buffer_shouldRejectChanges_afterFinalFlush() {
+        PriceUpdateWriter writer = spy(new PriceUpdateWriter(trackedItemRepository, priceHistoryRepository, 10));
+        PriceUpdateBuffer buffer = new PriceUpdateBuffer(writer);
+        buffer.flush();
+
+        assertThrows(IllegalStateException.class,
+                () -> buffer.add(new PriceChange(1L, Money.ofKopecks(300), Money.ofKopecks(100), null, LocalDateTime.now())));
+        verify(writer, never()).write(anyList());
+    }
+
+    private TrackedItem item(Long id, long price) {
+        return TrackedItem.builder()
+                .id(id)
+                .article("1433" + id)
+                .chatId(1L)
+                .marketplace(Marketplace.WB)
+                .title("T-Shirt")
+                .basicPrice(Money.ofKopecks(price))
+                .currentPrice(Money.ofKopecks(price))
+                .build();
+    }
+}
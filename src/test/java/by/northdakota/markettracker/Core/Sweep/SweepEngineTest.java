@@ -0,0 +1,104 @@
+package by.northdakota.markettracker.Core.Sweep;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepEngineTest {
+
+    @Test
+    void run_shouldCollectOutcomesPerArticle() {
+        SweepEngine engine = new SweepEngine(4, 1, Duration.ofSeconds(10), 1000);
+
+        SweepSummary summary;
+        try (SweepRun run = engine.start(Marketplace.WB)) {
+            run.submit(List.of("1", "2", "3"), articles -> Map.of(
+                    "1", SweepOutcome.CHANGED,
+                    "2", SweepOutcome.UNCHANGED));
+            run.submit(List.of("4", "5"), articles -> {
+                throw new IllegalStateException("upstream down");
+            });
+            summary = run.await();
+        }
+
+        assertAll(
+                () -> assertEquals(5, summary.total()),
+                () -> assertEquals(1, summary.count(SweepOutcome.CHANGED)),
+                () -> assertEquals(1, summary.count(SweepOutcome.UNCHANGED)),
+                () -> assertEquals(3, summary.count(SweepOutcome.FAILED)),
+                () -> assertEquals(0, summary.count(SweepOutcome.TIMED_OUT))
+        );
+    }
+
+    @Test
+    void run_shouldNotExceedConcurrencyLimit() {
+        SweepEngine engine = new SweepEngine(2, 1, Duration.ofSeconds(10), 1000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        SweepSummary summary;
+        try (SweepRun run = engine.start(Marketplace.WB)) {
+            for (int i = 0; i < 20; i++) {
+                String article = String.valueOf(i);
+                run.submit(List.of(article), articles -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    running.decrementAndGet();
+                    return Map.of(article, SweepOutcome.UNCHANGED);
+                });
+            }
+            summary = run.await();
+        }
+
+        assertEquals(20, summary.count(SweepOutcome.UNCHANGED));
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void run_shouldMarkUnfinishedArticlesTimedOut_whenDeadlinePasses() {
+        SweepEngine engine = new SweepEngine(1, 1, Duration.ofMillis(200), 1000);
+        CountDownLatch never = new CountDownLatch(1);
+
+        SweepSummary summary;
+        try (SweepRun run = engine.start(Marketplace.OZON)) {
+            run.submit(List.of("1", "2"), articles -> {
+                never.await();
+                return Map.of();
+            });
+            run.submit(List.of("3"), articles -> Map.of("3", SweepOutcome.CHANGED));
+            summary = run.await();
+        }
+
+        assertEquals(3, summary.count(SweepOutcome.TIMED_OUT));
+        assertEquals(0, summary.count(SweepOutcome.CHANGED));
+    }
+
+    @Test
+    void await_shouldStopRunningBatches_whenDeadlinePasses() throws InterruptedException {
+        SweepEngine engine = new SweepEngine(1, 1, Duration.ofMillis(200), 1000);
+        CountDownLatch never = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        try (SweepRun run = engine.start(Marketplace.WB)) {
+            run.submit(List.of("1"), articles -> {
+                try {
+                    never.await();
+                } finally {
+                    stopped.countDown();
+                }
+                return Map.of();
+            });
+            run.await();
+            // проверяем до close(): к возврату из await batch уже должен быть остановлен
+            assertTrue(stopped.await(0, TimeUnit.MILLISECONDS));
+        }
+    }
+}
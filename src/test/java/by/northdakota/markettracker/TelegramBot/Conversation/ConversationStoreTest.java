@@ -0,0 +1,135 @@
+package by.northdakota.markettracker.TelegramBot.Conversation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+    private static final Duration TTL = Duration.ofDays(7);
+
+    @Mock
+    private ConversationRepository repository;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private ConversationStore store(long maxSize, boolean persist) {
+        return new ConversationStore(repository, Clock.fixed(NOW, ZoneOffset.UTC), nanos::get, TTL, maxSize, persist);
+    }
+
+    @Test
+    void get_shouldRestorePersistedConversation() {
+        when(repository.find(42L, NOW.minus(TTL)))
+                .thenReturn(Optional.of(new ConversationState(BotState.WAITING_FOR_ARTICLE, "WB")));
+        ConversationStore store = store(100, true);
+
+        assertEquals(new ConversationState(BotState.WAITING_FOR_ARTICLE, "WB"), store.get(42L));
+        store.get(42L);
+
+        verify(repository, times(1)).find(anyLong(), any());
+    }
+
+    @Test
+    void flush_shouldWriteBehind_andDeleteResetChats() {
+        when(repository.find(anyLong(), any())).thenReturn(Optional.empty());
+        ConversationStore store = store(100, true);
+
+        store.update(1L, s -> new ConversationState(BotState.WAITING_FOR_ARTICLE, "OZON"));
+        store.setState(1L, BotState.READY);
+        store.setState(2L, BotState.WAITING_FOR_DELETE);
+        store.reset(2L);
+        verify(repository, never()).saveAll(any(), any());
+
+        store.flush();
+
+        verify(repository).saveAll(Map.of(1L, new ConversationState(BotState.READY, "OZON")), NOW);
+        verify(repository).deleteAll(List.of(2L));
+
+        store.flush();
+        verify(repository, times(1)).saveAll(any(), any());
+    }
+
+    @Test
+    void flush_shouldKeepChanges_whenDatabaseFails() {
+        when(repository.find(anyLong(), any())).thenReturn(Optional.empty());
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository).saveAll(any(), any());
+        ConversationStore store = store(100, true);
+
+        store.setState(1L, BotState.WAITING_FOR_DELETE);
+        store.flush();
+        store.flush();
+
+        verify(repository, times(2)).saveAll(eq(Map.of(1L, new ConversationState(BotState.WAITING_FOR_DELETE, null))), any());
+    }
+
+    @Test
+    void get_shouldForgetIdleChats_afterTtl() {
+        ConversationStore store = store(100, false);
+
+        store.setState(1L, BotState.WAITING_FOR_MARKETPLACE);
+        nanos.addAndGet(TTL.plusSeconds(1).toNanos());
+
+        assertEquals(ConversationState.INITIAL, store.get(1L));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void get_shouldReadUnflushedState_afterEviction() {
+        when(repository.find(anyLong(), any())).thenReturn(Optional.empty());
+        ConversationStore store = store(1, true);
+
+        store.setState(1L, BotState.WAITING_FOR_DELETE);
+        for (long chatId = 2; chatId < 50; chatId++) {
+            store.get(chatId);
+        }
+
+        assertEquals(BotState.WAITING_FOR_DELETE, store.get(1L).state());
+    }
+
+    @Test
+    void update_shouldBeAtomicPerChat() throws Exception {
+        ConversationStore store = store(100, false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 1000; j++) {
+                    store.update(1L, s -> new ConversationState(s.state(),
+                            String.valueOf(s.marketplace() == null ? 1 : Integer.parseInt(s.marketplace()) + 1)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals("8000", store.get(1L).marketplace());
+    }
+}
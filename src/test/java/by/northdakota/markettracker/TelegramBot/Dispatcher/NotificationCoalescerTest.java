@@ -0,0 +1,96 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.Notification;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
+import by.northdakota.markettracker.Core.Sweep.SweepSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationCoalescerTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void onSweepCompleted_shouldSendOneDigestPerChat() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(eventPublisher, Duration.ofMinutes(40));
+        coalescer.onPriceChange(change(1L, Marketplace.WB, "143314331", "T-Shirt"));
+        coalescer.onPriceChange(change(1L, Marketplace.WB, "143314332", "Hoodie"));
+        coalescer.onPriceChange(change(2L, Marketplace.WB, "143314331", "T-Shirt"));
+        coalescer.onPriceChange(change(1L, Marketplace.OZON, "143314333", "Cap"));
+
+        coalescer.onSweepCompleted(summary(Marketplace.WB));
+
+        ArgumentCaptor<Notification> sent = ArgumentCaptor.forClass(Notification.class);
+        verify(eventPublisher, times(2)).publishEvent(sent.capture());
+        Notification first = sent.getAllValues().get(0);
+        assertEquals(1L, first.getChatId());
+        assertTrue(first.getMessage().contains("Hoodie\nАртикул: 143314332\n120 → 99.50 ₽"));
+        assertTrue(first.getMessage().startsWith("💰 Изменились цены на WB (2)"));
+        assertFalse(first.getMessage().contains("Cap"));
+
+        coalescer.onSweepCompleted(summary(Marketplace.WB));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void digest_shouldSplitAtTelegramLimit() {
+        String title = "x".repeat(150);
+        List<PriceChangeEvent> changes = IntStream.range(0, 100)
+                .mapToObj(i -> change(1L, Marketplace.OZON, String.valueOf(143314000 + i), title))
+                .toList();
+
+        List<String> messages = NotificationCoalescer.digest(Marketplace.OZON, changes);
+
+        assertTrue(messages.size() > 1);
+        assertTrue(messages.stream().allMatch(m -> m.length() <= NotificationCoalescer.MESSAGE_LIMIT));
+        assertEquals(100, messages.stream().mapToLong(m -> m.split("Артикул: ", -1).length - 1).sum());
+    }
+
+    @Test
+    void digest_shouldShowCardPrice_whenItChanged() {
+        PriceChangeEvent change = new PriceChangeEvent(1L, Marketplace.OZON, "143314331", "Cap",
+                Money.ofRubles(120), Money.ofRubles(120), Money.ofRubles(110), Money.ofKopecks(9950));
+
+        String message = NotificationCoalescer.digest(Marketplace.OZON, List.of(change)).get(0);
+
+        assertTrue(message.contains("120 → 120 ₽\nПо карте: 110 → 99.50 ₽"));
+    }
+
+    @Test
+    void flushExpired_shouldFlushOnlyAfterWindow() throws InterruptedException {
+        NotificationCoalescer coalescer = new NotificationCoalescer(eventPublisher, Duration.ofMillis(50));
+        coalescer.onPriceChange(change(1L, Marketplace.OZON, "143314331", "T-Shirt"));
+
+        coalescer.flushExpired();
+        verifyNoInteractions(eventPublisher);
+
+        Thread.sleep(60);
+        coalescer.flushExpired();
+        verify(eventPublisher).publishEvent(any(Notification.class));
+    }
+
+    private PriceChangeEvent change(Long chatId, Marketplace marketplace, String article, String title) {
+        return new PriceChangeEvent(chatId, marketplace, article, title,
+                Money.ofRubles(120), Money.ofKopecks(9950));
+    }
+
+    private SweepSummary summary(Marketplace marketplace) {
+        return new SweepSummary(marketplace, Map.of(), Duration.ZERO);
+    }
+}
@@ -0,0 +1,140 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private AbsSender sender;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void submit_shouldSendMessagesInOrderPerChat() throws Exception {
+        List<String> texts = Collections.synchronizedList(new ArrayList<>());
+        when(sender.execute(any(SendMessage.class))).thenAnswer(invocation -> {
+            texts.add(invocation.<SendMessage>getArgument(0).getText());
+            return new Message();
+        });
+        dispatcher = dispatcher(100, 1000, Duration.ofMillis(10));
+        dispatcher.start();
+
+        dispatcher.submit(1L, "first");
+        dispatcher.submit(1L, "second");
+        dispatcher.submit(1L, "third");
+
+        verify(sender, timeout(2000).times(3)).execute(any(SendMessage.class));
+        assertEquals(List.of("first", "second", "third"), texts);
+        assertEquals(3, meterRegistry.counter("telegram.dispatcher.messages", "result", "sent").count());
+        assertEquals(3, meterRegistry.timer("telegram.dispatcher.send").count());
+    }
+
+    @Test
+    void submit_shouldSpaceMessagesToSameChat() throws Exception {
+        when(sender.execute(any(SendMessage.class))).thenReturn(new Message());
+        dispatcher = dispatcher(100, 10, Duration.ofMillis(10));
+        dispatcher.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.submit(1L, "message " + i);
+        }
+        verify(sender, timeout(2000).times(3)).execute(any(SendMessage.class));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 190);
+    }
+
+    @Test
+    void submit_shouldRetryAfterTooManyRequests() throws Exception {
+        TelegramApiRequestException tooManyRequests = mock(TelegramApiRequestException.class);
+        when(tooManyRequests.getErrorCode()).thenReturn(429);
+        when(tooManyRequests.getParameters()).thenReturn(new ResponseParameters(null, 0));
+        when(sender.execute(any(SendMessage.class)))
+                .thenThrow(tooManyRequests)
+                .thenReturn(new Message());
+        dispatcher = dispatcher(100, 1000, Duration.ofMillis(10));
+        dispatcher.start();
+
+        dispatcher.submit(1L, "price changed");
+
+        verify(sender, timeout(2000).times(2)).execute(any(SendMessage.class));
+        assertEquals(1, meterRegistry.counter("telegram.dispatcher.messages", "result", "retried").count());
+        assertEquals(1, meterRegistry.counter("telegram.dispatcher.messages", "result", "sent").count());
+    }
+
+    @Test
+    void submit_shouldReserveChatSlotAgain_whenRetryingAfterTooManyRequests() throws Exception {
+        TelegramApiRequestException tooManyRequests = mock(TelegramApiRequestException.class);
+        when(tooManyRequests.getErrorCode()).thenReturn(429);
+        when(tooManyRequests.getParameters()).thenReturn(new ResponseParameters(null, 0));
+        List<Long> sentAt = Collections.synchronizedList(new ArrayList<>());
+        when(sender.execute(any(SendMessage.class))).thenAnswer(invocation -> {
+            sentAt.add(System.nanoTime());
+            if (sentAt.size() == 1) {
+                throw tooManyRequests;
+            }
+            return new Message();
+        });
+        dispatcher = dispatcher(100, 10, Duration.ofMillis(10));
+        dispatcher.start();
+
+        dispatcher.submit(1L, "price changed");
+
+        verify(sender, timeout(2000).times(2)).execute(any(SendMessage.class));
+        assertTrue(Duration.ofNanos(sentAt.get(1) - sentAt.get(0)).toMillis() >= 90);
+    }
+
+    @Test
+    void submit_shouldDropMessage_whenQueueIsFull() {
+        dispatcher = dispatcher(1, 1000, Duration.ofMillis(10));
+
+        assertTrue(dispatcher.submit(1L, "first"));
+        assertFalse(dispatcher.submit(2L, "second"));
+
+        assertEquals(1, meterRegistry.counter("telegram.dispatcher.messages", "result", "dropped").count());
+        assertEquals(1, meterRegistry.get("telegram.dispatcher.queue.size").gauge().value());
+    }
+
+    @Test
+    void tokenBucket_shouldReserveConsecutiveSlotsAfterBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(100_000_000L, bucket.reserve(0));
+        assertEquals(200_000_000L, bucket.reserve(0));
+        assertEquals(1_000_000_000L, bucket.reserve(1_000_000_000L));
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, double chatPerSecond, Duration backoff) {
+        return new NotificationDispatcher(sender, meterRegistry, capacity, 2, 1000, chatPerSecond, 1, 3, backoff);
+    }
+}
@@ -0,0 +1,161 @@
+package by.northdakota.markettracker.TelegramBot.Dispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdatePipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UpdatePipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void submit_shouldPreserveOrderWithinChat() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 1000, 1000, Duration.ofSeconds(5));
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int update = i;
+            assertTrue(pipeline.submit(1L, () -> {
+                handled.add(update);
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, handled.get(i));
+        }
+    }
+
+    @Test
+    void submit_shouldNotBlockOtherChats_behindSlowOne() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 100, 10, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherChat = new CountDownLatch(1);
+        List<String> handled = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(1L, () -> await(release));
+        pipeline.submit(1L, () -> handled.add("chat1"));
+        pipeline.submit(2L, () -> {
+            handled.add("chat2");
+            otherChat.countDown();
+        });
+
+        assertTrue(otherChat.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("chat2"), handled);
+        release.countDown();
+    }
+
+    @Test
+    void submit_shouldReject_whenChatOrPipelineFull() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 3, 2, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(pipeline.submit(1L, () -> await(release)));
+        assertTrue(pipeline.submit(1L, () -> { }));
+        assertFalse(pipeline.submit(1L, () -> { }));
+        assertTrue(pipeline.submit(2L, () -> await(release)));
+        assertFalse(pipeline.submit(3L, () -> { }));
+
+        assertEquals(2, meterRegistry.counter("telegram.updates", "result", "rejected").count());
+        release.countDown();
+    }
+
+    @Test
+    void submit_shouldKeepProcessingChat_afterHandlerFailure() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 10, 10, Duration.ofSeconds(5));
+        CountDownLatch done = new CountDownLatch(1);
+
+        pipeline.submit(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        pipeline.submit(1L, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.counter("telegram.updates", "result", "failed").count());
+    }
+
+    @Test
+    void submit_shouldKeepProcessingChat_afterHandlerError() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 10, 10, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        pipeline.submit(1L, () -> {
+            await(release);
+            throw new AssertionError("boom");
+        });
+        pipeline.submit(1L, done::countDown);
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.counter("telegram.updates", "result", "failed").count());
+    }
+
+    @Test
+    void stop_shouldFinishQueuedUpdates_withinTimeout() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 10, 10, Duration.ofSeconds(5));
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            int update = i;
+            pipeline.submit(1L, () -> {
+                sleep(20);
+                handled.add(update);
+            });
+        }
+        pipeline.stop();
+
+        assertEquals(List.of(0, 1, 2), handled);
+        assertFalse(pipeline.submit(1L, () -> { }));
+        assertEquals(0, meterRegistry.counter("telegram.updates", "result", "discarded").count());
+    }
+
+    @Test
+    void stop_shouldCountDiscardedUpdates_afterTimeout() throws InterruptedException {
+        pipeline = new UpdatePipeline(meterRegistry, 10, 10, Duration.ofMillis(100));
+        CountDownLatch never = new CountDownLatch(1);
+        List<String> handled = new CopyOnWriteArrayList<>();
+
+        pipeline.submit(1L, () -> await(never));
+        pipeline.submit(1L, () -> handled.add("queued"));
+        pipeline.submit(2L, () -> await(never));
+        pipeline.stop();
+
+        assertEquals(3, meterRegistry.counter("telegram.updates", "result", "discarded").count());
+        assertEquals(0, meterRegistry.get("telegram.updates.chats").gauge().value());
+        Thread.sleep(50);
+        assertTrue(handled.isEmpty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
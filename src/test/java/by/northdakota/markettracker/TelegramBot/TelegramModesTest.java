@@ -0,0 +1,194 @@
+package by.northdakota.markettracker.TelegramBot;
+
+import by.northdakota.markettracker.Core.History.PriceHistoryService;
+import by.northdakota.markettracker.Core.Service.OzonTrackerService;
+import by.northdakota.markettracker.Core.Service.WbTrackerService;
+import by.northdakota.markettracker.TelegramBot.Conversation.ConversationState;
+import by.northdakota.markettracker.TelegramBot.Conversation.ConversationStore;
+import by.northdakota.markettracker.TelegramBot.Dispatcher.UpdatePipeline;
+import by.northdakota.markettracker.TelegramBot.Webhook.TelegramWebhookController;
+import by.northdakota.markettracker.TelegramBot.Webhook.WebhookRegistrar;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// бот ходит в локальный сервер, который изображает Telegram Bot API
+@ExtendWith(MockitoExtension.class)
+class TelegramModesTest {
+
+    private static final String TOKEN = "123:test";
+    private static final String SECRET = "s3cret";
+    private static final String START_UPDATE = """
+            {"update_id":1,"message":{"message_id":1,"date":0,"text":"/start",
+             "chat":{"id":7,"type":"private","username":"alice"}}}""";
+    private static final String SENT_MESSAGE = """
+            {"ok":true,"result":{"message_id":2,"date":0,"chat":{"id":7,"type":"private"}}}""";
+
+    @Mock
+    private WbTrackerService wbTrackerService;
+    @Mock
+    private OzonTrackerService ozonTrackerService;
+    @Mock
+    private PriceHistoryService priceHistoryService;
+    @Mock
+    private ConversationStore conversations;
+    @Mock
+    private TrackedListRenderer trackedListRenderer;
+
+    private HttpServer telegram;
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean updateDelivered = new AtomicBoolean();
+    private UpdatePipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        telegram = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        telegram.createContext("/", exchange -> {
+            String method = exchange.getRequestURI().getPath().substring(("/bot" + TOKEN + "/").length());
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String response;
+            if (method.equalsIgnoreCase("getUpdates")) {
+                if (updateDelivered.compareAndSet(false, true)) {
+                    response = "{\"ok\":true,\"result\":[" + START_UPDATE + "]}";
+                } else {
+                    sleep(50);
+                    response = "{\"ok\":true,\"result\":[]}";
+                }
+            } else {
+                calls.add(method.toLowerCase() + " " + body);
+                response = method.equalsIgnoreCase("sendMessage") ? SENT_MESSAGE : "{\"ok\":true,\"result\":true}";
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        telegram.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        telegram.stop(0);
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void pollingMode_shouldReceiveUpdateAndReply() throws Exception {
+        when(conversations.get(anyLong())).thenReturn(ConversationState.INITIAL);
+        TrackerTelegramBot bot = bot(100);
+
+        BotSession session = new TelegramBotsApi(DefaultBotSession.class).registerBot(bot);
+        try {
+            awaitCall("sendmessage");
+        } finally {
+            session.stop();
+        }
+
+        assertTrue(calls.get(0).startsWith("deletewebhook"));
+        assertTrue(calls.stream().anyMatch(call -> call.startsWith("sendmessage") && call.contains("alice")));
+    }
+
+    @Test
+    void webhookMode_shouldAcceptUpdate_onlyWithSecret() throws Exception {
+        when(conversations.get(anyLong())).thenReturn(ConversationState.INITIAL);
+        MockMvc mvc = webhook(bot(100));
+
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(START_UPDATE))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(START_UPDATE)
+                        .header(TelegramWebhookController.SECRET_HEADER, "wrong"))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(START_UPDATE)
+                        .header(TelegramWebhookController.SECRET_HEADER, SECRET))
+                .andExpect(status().isOk());
+
+        awaitCall("sendmessage");
+        assertEquals(1, calls.size());
+        verify(conversations, times(1)).get(7L);
+    }
+
+    @Test
+    void webhookMode_shouldAskTelegramToRetry_whenQueueFull() throws Exception {
+        MockMvc mvc = webhook(bot(0));
+
+        mvc.perform(post("/telegram/webhook").contentType(MediaType.APPLICATION_JSON).content(START_UPDATE)
+                        .header(TelegramWebhookController.SECRET_HEADER, SECRET))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void webhookRegistrar_shouldRegisterUrlWithSecret() throws Exception {
+        new WebhookRegistrar(bot(1), "https://tracker.example/", "/telegram/webhook", SECRET, 40).register();
+
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).startsWith("setwebhook"));
+        assertTrue(calls.get(0).contains("https://tracker.example/telegram/webhook"));
+        assertTrue(calls.get(0).contains(SECRET));
+    }
+
+    private TrackerTelegramBot bot(int queueCapacity) {
+        pipeline = new UpdatePipeline(new SimpleMeterRegistry(), queueCapacity, 10, Duration.ofSeconds(5));
+        String apiUrl = "http://127.0.0.1:" + telegram.getAddress().getPort() + "/bot";
+        TrackerTelegramBot bot = new TrackerTelegramBot(TOKEN, apiUrl, wbTrackerService, ozonTrackerService,
+                priceHistoryService, conversations, pipeline, trackedListRenderer);
+        ReflectionTestUtils.setField(bot, "botUsername", "tracker_bot");
+        return bot;
+    }
+
+    private static MockMvc webhook(TrackerTelegramBot bot) {
+        return MockMvcBuilders.standaloneSetup(new TelegramWebhookController(bot, SECRET))
+                .addPlaceholderValue("telegram.webhook.path", "/telegram/webhook")
+                .build();
+    }
+
+    private void awaitCall(String method) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (calls.stream().noneMatch(call -> call.startsWith(method))) {
+            assertTrue(System.nanoTime() < deadline, "Telegram не получил " + method + ": " + calls);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package by.northdakota.markettracker.TelegramBot;
+
+import by.northdakota.markettracker.Core.Dto.TrackedItemDto;
+import by.northdakota.markettracker.Core.Entity.Marketplace;
+import by.northdakota.markettracker.Core.Entity.Money;
+import by.northdakota.markettracker.Core.Entity.PriceChangeEvent;
+import by.northdakota.markettracker.Core.Entity.TrackingChangedEvent;
+import by.northdakota.markettracker.Core.Repository.TrackedItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackedListRendererTest {
+
+    private static final Long CHAT_ID = 1433L;
+
+    @Mock
+    private TrackedItemRepository trackedItemRepository;
+
+    private TrackedListRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new TrackedListRenderer(trackedItemRepository, new SimpleMeterRegistry(), 2, 100, Duration.ofMinutes(30));
+    }
+
+    @Test
+    void render_shouldUseOneProjectionQuery_andCacheText() {
+        stubPage(0, true, wb("1"), ozon("2"));
+
+        String first = renderer.render(CHAT_ID, 1);
+        String second = renderer.render(CHAT_ID, 1);
+
+        assertSame(first, second);
+        assertTrue(first.contains("1. Товар 1\nАртикул: 1\nТекущая цена: 1 ₽"));
+        assertTrue(first.contains("2. Товар 2\nАртикул: 2\nТекущая цена без карты: 1 ₽"));
+        assertTrue(first.endsWith("Дальше: /list 2"));
+        verify(trackedItemRepository, times(1)).findListByChatId(eq(CHAT_ID), any());
+        verifyNoMoreInteractions(trackedItemRepository);
+    }
+
+    @Test
+    void render_shouldNumberItemsAcrossPages() {
+        stubPage(1, false, ozon("3"));
+
+        String page = renderer.render(CHAT_ID, 2);
+
+        assertTrue(page.contains("3. Товар 3"));
+        assertFalse(page.contains("Дальше"));
+    }
+
+    @Test
+    void render_shouldReportEmptyList() {
+        stubPage(0, false);
+
+        assertEquals("Вы пока не отслеживаете ни один товар.", renderer.render(CHAT_ID, 1));
+    }
+
+    @Test
+    void render_shouldRebuild_afterTrackingOrPriceChanges() {
+        stubPage(0, false, wb("1"));
+
+        renderer.render(CHAT_ID, 1);
+        renderer.onTrackingChanged(new TrackingChangedEvent(CHAT_ID));
+        renderer.render(CHAT_ID, 1);
+        renderer.onPriceChange(new PriceChangeEvent(CHAT_ID, Marketplace.WB, "1", "Товар 1",
+                Money.ofKopecks(100), Money.ofKopecks(90)));
+        renderer.render(CHAT_ID, 1);
+        renderer.onTrackingChanged(new TrackingChangedEvent(CHAT_ID + 1));
+        renderer.render(CHAT_ID, 1);
+
+        verify(trackedItemRepository, times(3)).findListByChatId(eq(CHAT_ID), any());
+    }
+
+    private void stubPage(int page, boolean hasNext, TrackedItemDto... items) {
+        when(trackedItemRepository.findListByChatId(eq(CHAT_ID), eq(PageRequest.of(page, 2))))
+                .thenReturn(new SliceImpl<>(List.of(items), PageRequest.of(page, 2), hasNext));
+    }
+
+    private static TrackedItemDto wb(String article) {
+        return new TrackedItemDto(article, "Товар " + article, Money.ofKopecks(100), Money.ofKopecks(140), null,
+                Marketplace.WB);
+    }
+
+    private static TrackedItemDto ozon(String article) {
+        return new TrackedItemDto(article, "Товар " + article, Money.ofKopecks(100), Money.ofKopecks(140),
+                Money.ofKopecks(95), Marketplace.OZON);
+    }
+}